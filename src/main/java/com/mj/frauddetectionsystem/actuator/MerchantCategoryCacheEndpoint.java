@@ -0,0 +1,34 @@
+package com.mj.frauddetectionsystem.actuator;
+
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "merchant-categories")
+public class MerchantCategoryCacheEndpoint {
+
+    @Autowired
+    private MerchantCategoryCache merchantCategoryCache;
+
+    @ReadOperation
+    public Map<String, Object> cacheSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("categories", merchantCategoryCache.size());
+        summary.put("loadedAt", merchantCategoryCache.getLoadedAt());
+        summary.put("byRiskLevel", merchantCategoryCache.getCountsByRiskLevel());
+        return summary;
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        merchantCategoryCache.refresh();
+        return cacheSummary();
+    }
+}
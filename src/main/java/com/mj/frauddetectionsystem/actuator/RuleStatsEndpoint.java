@@ -0,0 +1,23 @@
+package com.mj.frauddetectionsystem.actuator;
+
+import com.mj.frauddetectionsystem.dto.RuleStats;
+import com.mj.frauddetectionsystem.rules.FraudDetectionEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "rule-stats")
+public class RuleStatsEndpoint {
+
+    @Autowired
+    private FraudDetectionEngine fraudDetectionEngine;
+
+    @ReadOperation
+    public List<RuleStats> ruleStatistics() {
+        return fraudDetectionEngine.getRuleStats();
+    }
+}
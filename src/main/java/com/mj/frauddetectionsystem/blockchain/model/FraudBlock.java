@@ -10,7 +10,9 @@ import java.math.BigDecimal;
 @Table(name = "fraud_blocks")
 public class FraudBlock {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fraud_block_ids")
+    @TableGenerator(name = "fraud_block_ids", table = "id_generators", pkColumnName = "entity",
+                    valueColumnName = "next_val", pkColumnValue = "fraud_blocks", allocationSize = 20)
     private Long id;
     @Column(name = "block_index", nullable = false)
     private Long blockIndex;
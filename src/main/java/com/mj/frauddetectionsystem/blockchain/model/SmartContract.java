@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 @Table(name = "smart_contracts")
 public class SmartContract {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "smart_contract_ids")
+    @TableGenerator(name = "smart_contract_ids", table = "id_generators", pkColumnName = "entity",
+                    valueColumnName = "next_val", pkColumnValue = "smart_contracts", allocationSize = 10)
     private Long id;
     @Column(name = "contract_id", nullable = false, unique = true)
     private String contractId;
@@ -1,10 +1,27 @@
 package com.mj.frauddetectionsystem.config;
 
 
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import com.mj.frauddetectionsystem.state.PartitionOwnership;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
@@ -24,4 +41,38 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
+
+    /**
+     * Batch listener containers for transaction ingestion. Offsets are acknowledged by
+     * the listener once a batch is stored; a batch that fails is redelivered until it
+     * succeeds, since giving up would commit past unprocessed events. Payloads that
+     * cannot be deserialized arrive as null values instead of failing the batch.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TransactionRequest> transactionEventsListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            MeterRegistry meterRegistry,
+            PartitionOwnership partitionOwnership,
+            @Value("${fraud.detection.ingest.kafka.concurrency:3}") int concurrency,
+            @Value("${fraud.detection.ingest.kafka.max-poll-records:500}") int maxPollRecords,
+            @Value("${fraud.detection.ingest.kafka.retry-interval-ms:5000}") long retryIntervalMs) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties();
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        DefaultKafkaConsumerFactory<String, TransactionRequest> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                properties,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(TransactionRequest.class, false)));
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry)); // Exposes consumer lag
+
+        ConcurrentKafkaListenerContainerFactory<String, TransactionRequest> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(partitionOwnership);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryIntervalMs, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
 }
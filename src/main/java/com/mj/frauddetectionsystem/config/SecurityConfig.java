@@ -29,7 +29,7 @@ public class SecurityConfig {
                
                 // Fraud Detection endpoints
                 .requestMatchers(AntPathRequestMatcher.antMatcher("/fraud-detection/analyze")).hasRole("USER")
-                .requestMatchers(AntPathRequestMatcher.antMatcher("/fraud-detection/statistics")).hasRole("ADMIN")
+                .requestMatchers(AntPathRequestMatcher.antMatcher("/fraud-detection/statistics/**")).hasRole("ADMIN")
                 .requestMatchers(AntPathRequestMatcher.antMatcher("/fraud-detection/alerts/**")).hasRole("ANALYST")
                 
                 // Blockchain endpoints
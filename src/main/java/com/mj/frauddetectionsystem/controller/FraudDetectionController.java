@@ -3,21 +3,33 @@ package com.mj.frauddetectionsystem.controller;
 
 import com.mj.frauddetectionsystem.dto.*;
 import com.mj.frauddetectionsystem.model.*;
+import com.mj.frauddetectionsystem.service.BulkTransactionService;
 import com.mj.frauddetectionsystem.service.FraudDetectionService;
+import com.mj.frauddetectionsystem.service.TransactionEventPublisher;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/fraud-detection")
@@ -26,9 +38,20 @@ import java.util.List;
 public class FraudDetectionController {
 
     private static final Logger logger = LoggerFactory.getLogger(FraudDetectionController.class);
+    private static final String NDJSON = "application/x-ndjson";
 
     @Autowired
     private FraudDetectionService fraudDetectionService;
+    
+    @Autowired
+    private BulkTransactionService bulkTransactionService;
+    
+    @Autowired
+    private TransactionEventPublisher transactionEventPublisher;
+    
+    // Bounds how long a request thread waits for the broker
+    @Value("${fraud.detection.ingest.kafka.publish-timeout-ms:2000}")
+    private long publishTimeoutMs;
 
     @PostMapping("/analyze")
     @Operation(summary = "Analyze transaction for fraud", 
@@ -63,9 +86,7 @@ public class FraudDetectionController {
         
         logger.info("Received batch fraud analysis request for {} transactions", requests.size());
         
-        List<FraudDetectionResponse> responses = requests.stream()
-                .map(fraudDetectionService::processTransaction)
-                .toList();
+        List<FraudDetectionResponse> responses = bulkTransactionService.analyzeBulk(requests);
         
         long fraudCount = responses.stream().mapToLong(r -> r.isFraudulent() ? 1 : 0).sum();
         logger.info("Batch analysis completed - {} fraudulent out of {} transactions", 
@@ -74,6 +95,39 @@ public class FraudDetectionController {
         return ResponseEntity.ok(responses);
     }
 
+    @PostMapping(value = "/batch-analyze/stream", consumes = NDJSON, produces = NDJSON)
+    @Operation(summary = "Stream analyze transactions", 
+               description = "Analyze newline-delimited JSON transactions in bounded windows, streaming one JSON result line per input line")
+    public void streamAnalyze(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        logger.info("Received streaming fraud analysis request");
+        
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        long count = bulkTransactionService.analyzeStream(request.getInputStream(), response.getOutputStream());
+        
+        logger.info("Streaming analysis completed - {} transactions", count);
+    }
+
+    @PostMapping("/events")
+    @Operation(summary = "Submit transaction for asynchronous analysis", 
+               description = "Publish a transaction to the ingest topic, keyed by user, and return once the broker accepts it")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Transaction accepted by the broker"),
+        @ApiResponse(responseCode = "503", description = "Broker did not accept the transaction in time")
+    })
+    public ResponseEntity<Void> submitTransactionEvent(@Valid @RequestBody TransactionRequest request) {
+        try {
+            transactionEventPublisher.publish(request).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+            return ResponseEntity.accepted().build();
+        } catch (TimeoutException | ExecutionException e) {
+            logger.warn("Transaction event {} not accepted by the broker: {}", request.getTransactionId(), e.toString());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     @GetMapping("/transactions/{userId}")
     @Operation(summary = "Get user transactions")
     public ResponseEntity<List<Transaction>> getUserTransactions(
@@ -111,4 +165,34 @@ public class FraudDetectionController {
         FraudStatistics stats = fraudDetectionService.getFraudStatistics();
         return ResponseEntity.ok(stats);
     }
+
+    @GetMapping("/statistics/period")
+    @Operation(summary = "Get fraud statistics for a period",
+               description = "Totals for transactions in [from, to), with fraud broken down by merchant category and alert severity")
+    public ResponseEntity<FraudStatistics> getStatisticsForPeriod(
+            @Parameter(description = "Period start (inclusive)", example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Period end (exclusive)", example = "2025-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        logger.debug("Retrieving fraud statistics for [{}, {})", from, to);
+        FraudStatistics stats = fraudDetectionService.getFraudStatisticsForPeriod(from, to);
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/statistics/approximate")
+    @Operation(summary = "Get approximate fraud statistics for a period",
+               description = "Sketch-based distinct fraudulent users and merchants and fraud amount quantiles, with error bounds. Edges round out to the hour")
+    public ResponseEntity<ApproximateFraudStatistics> getApproximateStatistics(
+            @Parameter(description = "Period start (inclusive)", example = "2024-01-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Period end (exclusive)", example = "2024-02-01T00:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Amount quantiles to estimate", example = "0.5,0.9,0.99")
+            @RequestParam(defaultValue = "0.5,0.9,0.95,0.99") List<Double> quantiles) {
+        
+        logger.debug("Retrieving approximate fraud statistics for [{}, {})", from, to);
+        ApproximateFraudStatistics stats = fraudDetectionService.getApproximateFraudStatistics(from, to, quantiles);
+        return ResponseEntity.ok(stats);
+    }
 }
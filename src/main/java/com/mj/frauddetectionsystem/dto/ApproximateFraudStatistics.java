@@ -0,0 +1,84 @@
+package com.mj.frauddetectionsystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sketch-based statistics of fraudulent transactions over a window, with error bounds
+ */
+public class ApproximateFraudStatistics {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long fraudulentTransactions;
+    private CardinalityEstimate distinctUsers;
+    private CardinalityEstimate distinctMerchants;
+    private List<QuantileEstimate> amountQuantiles;
+    private LocalDateTime lastUpdated;
+
+    public ApproximateFraudStatistics() {
+        this.lastUpdated = LocalDateTime.now();
+    }
+
+    public LocalDateTime getFrom() { return from; }
+    public void setFrom(LocalDateTime from) { this.from = from; }
+
+    public LocalDateTime getTo() { return to; }
+    public void setTo(LocalDateTime to) { this.to = to; }
+
+    public long getFraudulentTransactions() { return fraudulentTransactions; }
+    public void setFraudulentTransactions(long fraudulentTransactions) { this.fraudulentTransactions = fraudulentTransactions; }
+
+    public CardinalityEstimate getDistinctUsers() { return distinctUsers; }
+    public void setDistinctUsers(CardinalityEstimate distinctUsers) { this.distinctUsers = distinctUsers; }
+
+    public CardinalityEstimate getDistinctMerchants() { return distinctMerchants; }
+    public void setDistinctMerchants(CardinalityEstimate distinctMerchants) { this.distinctMerchants = distinctMerchants; }
+
+    public List<QuantileEstimate> getAmountQuantiles() { return amountQuantiles; }
+    public void setAmountQuantiles(List<QuantileEstimate> amountQuantiles) { this.amountQuantiles = amountQuantiles; }
+
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+    public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
+
+    /**
+     * Distinct count estimate; the bounds are two standard errors either side
+     */
+    public static class CardinalityEstimate {
+        private long estimate;
+        private long lowerBound;
+        private long upperBound;
+        private double relativeStandardError;
+
+        public CardinalityEstimate(long estimate, double relativeStandardError) {
+            this.estimate = estimate;
+            this.relativeStandardError = relativeStandardError;
+            this.lowerBound = Math.max(0, Math.round(estimate * (1 - 2 * relativeStandardError)));
+            this.upperBound = Math.round(estimate * (1 + 2 * relativeStandardError));
+        }
+
+        public long getEstimate() { return estimate; }
+        public long getLowerBound() { return lowerBound; }
+        public long getUpperBound() { return upperBound; }
+        public double getRelativeStandardError() { return relativeStandardError; }
+    }
+
+    /**
+     * Amount at a quantile; the true rank of the amount is within rankErrorBound of the quantile
+     */
+    public static class QuantileEstimate {
+        private double quantile;
+        private BigDecimal amount;
+        private double rankErrorBound;
+
+        public QuantileEstimate(double quantile, BigDecimal amount, double rankErrorBound) {
+            this.quantile = quantile;
+            this.amount = amount;
+            this.rankErrorBound = rankErrorBound;
+        }
+
+        public double getQuantile() { return quantile; }
+        public BigDecimal getAmount() { return amount; }
+        public double getRankErrorBound() { return rankErrorBound; }
+    }
+}
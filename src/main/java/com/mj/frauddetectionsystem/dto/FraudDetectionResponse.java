@@ -21,6 +21,12 @@ public class FraudDetectionResponse {
     @Schema(description = "List of triggered fraud rules")
     private List<String> triggeredRules;
     
+    @Schema(description = "Reason codes reported by the triggered rules")
+    private List<String> reasonCodes;
+    
+    @Schema(description = "Rules that did not finish within their time budget")
+    private List<String> timedOutRules;
+    
     @Schema(description = "Transaction status", example = "FLAGGED")
     private String status;
     
@@ -70,6 +76,12 @@ public class FraudDetectionResponse {
     public List<String> getTriggeredRules() { return triggeredRules; }
     public void setTriggeredRules(List<String> triggeredRules) { this.triggeredRules = triggeredRules; }
 
+    public List<String> getReasonCodes() { return reasonCodes; }
+    public void setReasonCodes(List<String> reasonCodes) { this.reasonCodes = reasonCodes; }
+
+    public List<String> getTimedOutRules() { return timedOutRules; }
+    public void setTimedOutRules(List<String> timedOutRules) { this.timedOutRules = timedOutRules; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
@@ -13,6 +13,11 @@ public class FraudStatistics {
     private BigDecimal todayFraudRate;
     private LocalDateTime lastUpdated;
     
+    // Period breakdowns, set for period statistics only
+    private BigDecimal fraudulentAmount;
+    private Map<String, Long> fraudulentByCategory;
+    private Map<String, Long> fraudulentBySeverity;
+    
     //  Blockchain statistics
     private Map<String, Object> blockchainStats;
 
@@ -56,6 +61,15 @@ public class FraudStatistics {
     public LocalDateTime getLastUpdated() { return lastUpdated; }
     public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
     
+    public BigDecimal getFraudulentAmount() { return fraudulentAmount; }
+    public void setFraudulentAmount(BigDecimal fraudulentAmount) { this.fraudulentAmount = fraudulentAmount; }
+
+    public Map<String, Long> getFraudulentByCategory() { return fraudulentByCategory; }
+    public void setFraudulentByCategory(Map<String, Long> fraudulentByCategory) { this.fraudulentByCategory = fraudulentByCategory; }
+
+    public Map<String, Long> getFraudulentBySeverity() { return fraudulentBySeverity; }
+    public void setFraudulentBySeverity(Map<String, Long> fraudulentBySeverity) { this.fraudulentBySeverity = fraudulentBySeverity; }
+
     //  Blockchain getter and setter
     public Map<String, Object> getBlockchainStats() { return blockchainStats; }
     public void setBlockchainStats(Map<String, Object> blockchainStats) { 
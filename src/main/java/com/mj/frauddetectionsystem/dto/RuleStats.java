@@ -0,0 +1,56 @@
+package com.mj.frauddetectionsystem.dto;
+
+/**
+ * Per-rule evaluation counters and latency percentiles
+ */
+public class RuleStats {
+    private String ruleName;
+    private int evaluationPosition;
+    private long evaluations;
+    private long hits;
+    private long errors;
+    private long timeouts;
+    private double recentHitRate;
+    private double meanMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+
+    // getters and setters
+    public String getRuleName() { return ruleName; }
+    public void setRuleName(String ruleName) { this.ruleName = ruleName; }
+
+    public int getEvaluationPosition() { return evaluationPosition; }
+    public void setEvaluationPosition(int evaluationPosition) { this.evaluationPosition = evaluationPosition; }
+
+    public long getEvaluations() { return evaluations; }
+    public void setEvaluations(long evaluations) { this.evaluations = evaluations; }
+
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getErrors() { return errors; }
+    public void setErrors(long errors) { this.errors = errors; }
+
+    public long getTimeouts() { return timeouts; }
+    public void setTimeouts(long timeouts) { this.timeouts = timeouts; }
+
+    public double getRecentHitRate() { return recentHitRate; }
+    public void setRecentHitRate(double recentHitRate) { this.recentHitRate = recentHitRate; }
+
+    public double getMeanMs() { return meanMs; }
+    public void setMeanMs(double meanMs) { this.meanMs = meanMs; }
+
+    public double getP50Ms() { return p50Ms; }
+    public void setP50Ms(double p50Ms) { this.p50Ms = p50Ms; }
+
+    public double getP95Ms() { return p95Ms; }
+    public void setP95Ms(double p95Ms) { this.p95Ms = p95Ms; }
+
+    public double getP99Ms() { return p99Ms; }
+    public void setP99Ms(double p99Ms) { this.p99Ms = p99Ms; }
+
+    public double getMaxMs() { return maxMs; }
+    public void setMaxMs(double maxMs) { this.maxMs = maxMs; }
+}
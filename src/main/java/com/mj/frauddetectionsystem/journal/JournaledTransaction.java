@@ -0,0 +1,118 @@
+package com.mj.frauddetectionsystem.journal;
+
+import com.mj.frauddetectionsystem.model.MerchantCategory;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A scored transaction as written to the journal: the stored columns plus the
+ * analysis outcome needed to raise alerts once it reaches the database
+ */
+public class JournaledTransaction {
+
+    private String transactionId;
+    private String userId;
+    private BigDecimal amount;
+    private String merchantCategoryCode;
+    private String merchantName;
+    private String location;
+    private LocalDateTime timestamp;
+    private Transaction.PaymentMethod paymentMethod;
+    private String description;
+    private boolean fraudulent;
+    private BigDecimal confidenceScore;
+    private List<String> triggeredRules;
+    private List<String> timedOutRules;
+    private List<String> reasonCodes;
+
+    public JournaledTransaction() {}
+
+    public static JournaledTransaction of(Transaction transaction, String userId, FraudDetectionResult result) {
+        JournaledTransaction entry = new JournaledTransaction();
+        entry.transactionId = transaction.getTransactionId();
+        entry.userId = userId;
+        entry.amount = transaction.getAmount();
+        entry.merchantCategoryCode = transaction.getMerchantCategory() != null
+                ? transaction.getMerchantCategory().getCategoryCode() : null;
+        entry.merchantName = transaction.getMerchantName();
+        entry.location = transaction.getLocation();
+        entry.timestamp = transaction.getTimestamp();
+        entry.paymentMethod = transaction.getPaymentMethod();
+        entry.description = transaction.getDescription();
+        entry.fraudulent = result.isFraudulent();
+        entry.confidenceScore = result.getConfidenceScore();
+        entry.triggeredRules = result.getTriggeredRules();
+        entry.timedOutRules = result.getTimedOutRules();
+        entry.reasonCodes = result.getReasonCodes();
+        return entry;
+    }
+
+    /**
+     * Rebuild the unsaved transaction and its analysis result
+     */
+    public FraudDetectionResult toResult(User user, MerchantCategory category) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setUser(user);
+        transaction.setAmount(amount);
+        transaction.setMerchantCategory(category);
+        transaction.setMerchantName(merchantName);
+        transaction.setLocation(location);
+        transaction.setTimestamp(timestamp);
+        transaction.setPaymentMethod(paymentMethod);
+        transaction.setDescription(description);
+        transaction.setFraudulent(fraudulent);
+        transaction.setFraudScore(confidenceScore);
+        transaction.setProcessingStatus(fraudulent
+                ? Transaction.ProcessingStatus.UNDER_REVIEW : Transaction.ProcessingStatus.APPROVED);
+        return new FraudDetectionResult(transaction, fraudulent, triggeredRules, confidenceScore,
+                timedOutRules, reasonCodes);
+    }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public String getMerchantCategoryCode() { return merchantCategoryCode; }
+    public void setMerchantCategoryCode(String merchantCategoryCode) { this.merchantCategoryCode = merchantCategoryCode; }
+
+    public String getMerchantName() { return merchantName; }
+    public void setMerchantName(String merchantName) { this.merchantName = merchantName; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+
+    public Transaction.PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(Transaction.PaymentMethod paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public boolean isFraudulent() { return fraudulent; }
+    public void setFraudulent(boolean fraudulent) { this.fraudulent = fraudulent; }
+
+    public BigDecimal getConfidenceScore() { return confidenceScore; }
+    public void setConfidenceScore(BigDecimal confidenceScore) { this.confidenceScore = confidenceScore; }
+
+    public List<String> getTriggeredRules() { return triggeredRules; }
+    public void setTriggeredRules(List<String> triggeredRules) { this.triggeredRules = triggeredRules; }
+
+    public List<String> getTimedOutRules() { return timedOutRules; }
+    public void setTimedOutRules(List<String> timedOutRules) { this.timedOutRules = timedOutRules; }
+
+    public List<String> getReasonCodes() { return reasonCodes; }
+    public void setReasonCodes(List<String> reasonCodes) { this.reasonCodes = reasonCodes; }
+}
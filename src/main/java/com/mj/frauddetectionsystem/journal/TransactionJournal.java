@@ -0,0 +1,320 @@
+package com.mj.frauddetectionsystem.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of checksummed records in memory-mapped segment files.
+ *
+ * An append only copies the record into the current segment and returns its sequence
+ * number. A single sync thread forces the segment to disk and then marks every record
+ * written before the force as durable, so all appenders waiting at that moment share
+ * one fsync (group commit). Segments are deleted once the consumer has released every
+ * record in them; whatever is still on disk at startup is returned by {@link #recover()}.
+ *
+ * Record layout: payload length (int), CRC32 of the payload (int), sequence (long),
+ * payload. A zero length marks the unused tail of a segment.
+ */
+public class TransactionJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+
+    static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // Guarded by this
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment current;
+    private long nextSequence = 1;
+    private long releasedSequence;
+
+    // Guarded by syncMonitor
+    private final Object syncMonitor = new Object();
+    private volatile long syncedSequence;
+
+    private volatile boolean running;
+    private Thread syncThread;
+
+    public TransactionJournal(Path directory, int segmentSize) {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must exceed the record header");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Read the records left by a previous run and start accepting appends.
+     * Reading stops at the first torn or corrupt record of a segment.
+     *
+     * @return Unreleased records in sequence order
+     */
+    public synchronized List<Record> recover() throws IOException {
+        if (running) {
+            throw new IllegalStateException("Journal already open");
+        }
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        List<Record> records = new ArrayList<>();
+        for (Path file : files) {
+            List<Record> segmentRecords = readSegment(file);
+            if (segmentRecords.isEmpty()) {
+                Files.delete(file);
+                continue;
+            }
+            long lastSequence = segmentRecords.get(segmentRecords.size() - 1).getSequence();
+            segments.addLast(new Segment(file, null, lastSequence));
+            records.addAll(segmentRecords);
+            nextSequence = Math.max(nextSequence, lastSequence + 1);
+        }
+        syncedSequence = nextSequence - 1;
+
+        current = openSegment(nextSequence);
+        running = true;
+        syncThread = new Thread(this::syncLoop, "journal-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        return records;
+    }
+
+    /**
+     * Append a record. It is not durable until {@link #awaitDurable} returns for its sequence.
+     *
+     * @return Sequence number of the record
+     */
+    public synchronized long append(byte[] payload) {
+        if (!running) {
+            throw new IllegalStateException("Journal is not open");
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        if (current.buffer.remaining() < recordSize) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long sequence = nextSequence++;
+        MappedByteBuffer buffer = current.buffer;
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.putLong(sequence);
+        buffer.put(payload);
+        // Length last, so a record cut short in the page cache reads as the end of the segment
+        buffer.putInt(start, payload.length);
+        current.lastSequence = sequence;
+
+        notifyAll();
+        return sequence;
+    }
+
+    /**
+     * Wait until the record with the given sequence has been forced to disk
+     */
+    public void awaitDurable(long sequence, long timeoutMillis) throws InterruptedException, TimeoutException {
+        if (syncedSequence >= sequence) {
+            return;
+        }
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        synchronized (syncMonitor) {
+            while (syncedSequence < sequence) {
+                long remaining = (deadline - System.nanoTime()) / 1_000_000;
+                if (remaining <= 0) {
+                    throw new TimeoutException("Journal record " + sequence + " not synced within " + timeoutMillis + "ms");
+                }
+                syncMonitor.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Release every record up to and including the given sequence, deleting
+     * segments that hold nothing else
+     */
+    public synchronized void release(long sequence) {
+        releasedSequence = Math.max(releasedSequence, sequence);
+        while (!segments.isEmpty() && segments.peekFirst() != current
+                && segments.peekFirst().lastSequence <= sequence) {
+            Segment segment = segments.removeFirst();
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                logger.warn("Could not delete journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getSyncedSequence() {
+        return syncedSequence;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            notifyAll();
+        }
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            current.buffer.force();
+            markSynced(nextSequence - 1);
+            // A crash leaves released records of the current segment behind; a clean shutdown does not
+            if (current.lastSequence <= releasedSequence) {
+                release(current.lastSequence);
+                try {
+                    Files.deleteIfExists(current.path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete journal segment {}: {}", current.path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                while (running && nextSequence - 1 <= syncedSequence) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                target = nextSequence - 1;
+                buffer = current.buffer;
+            }
+            // Earlier segments were forced when they were rolled over
+            buffer.force();
+            markSynced(target);
+        }
+    }
+
+    private void markSynced(long sequence) {
+        synchronized (syncMonitor) {
+            if (sequence > syncedSequence) {
+                syncedSequence = sequence;
+            }
+            syncMonitor.notifyAll();
+        }
+    }
+
+    private void roll() {
+        current.buffer.force();
+        current = openSegment(nextSequence);
+    }
+
+    private Segment openSegment(long firstSequence) {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize), 0);
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create journal segment " + path, e);
+        }
+    }
+
+    private static List<Record> readSegment(Path file) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > buffer.remaining() - (HEADER_SIZE - Integer.BYTES)) {
+                    logger.warn("Truncated journal record at {}:{}, ignoring the rest of the segment", file, start);
+                    break;
+                }
+                int checksum = buffer.getInt();
+                long sequence = buffer.getLong();
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("Corrupt journal record at {}:{}, ignoring the rest of the segment", file, start);
+                    break;
+                }
+                records.add(new Record(sequence, payload));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * A journal record as read back by recovery
+     */
+    public static final class Record {
+        private final long sequence;
+        private final byte[] payload;
+
+        Record(long sequence, byte[] payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long getSequence() { return sequence; }
+        public byte[] getPayload() { return payload; }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private long lastSequence;
+
+        private Segment(Path path, MappedByteBuffer buffer, long lastSequence) {
+            this.path = path;
+            this.buffer = buffer;
+            this.lastSequence = lastSequence;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mj.frauddetectionsystem.listener;
+
+import com.mj.frauddetectionsystem.dto.FraudDetectionResponse;
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import com.mj.frauddetectionsystem.service.BulkTransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores transactions published to the transaction-events topic.
+ *
+ * Each poll batch goes through the bulk path, so it is scored in parallel and stored
+ * with batched writes; its offsets are acknowledged only after that returns. Events
+ * are keyed by user, so a user's burst arrives in one partition and is handed over in
+ * offset order; the bulk path scores it in that order and counts the earlier events
+ * towards the velocity checks of the later ones. Events that are rejected (unknown
+ * user, duplicate ID, invalid fields) are logged and skipped, since redelivering them
+ * cannot succeed.
+ */
+@Component
+public class TransactionEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionEventListener.class);
+
+    @Autowired
+    private BulkTransactionService bulkTransactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer batchTimer;
+    private Timer eventAge;
+    private Counter processed;
+    private Counter rejected;
+    private Counter malformed;
+
+    @PostConstruct
+    public void init() {
+        batchTimer = Timer.builder("fraud.ingest.batch.duration")
+                .description("Time to score and store one poll batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        eventAge = Timer.builder("fraud.ingest.event.age")
+                .description("Time from publishing an event until its batch is stored")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        processed = recordCounter("processed");
+        rejected = recordCounter("rejected");
+        malformed = recordCounter("malformed");
+    }
+
+    @KafkaListener(id = "transaction-events-ingest",
+                   topics = "${fraud.detection.ingest.kafka.topic:transaction-events}",
+                   groupId = "${fraud.detection.ingest.kafka.group-id:fraud-detection-ingest}",
+                   containerFactory = "transactionEventsListenerContainerFactory",
+                   autoStartup = "${fraud.detection.ingest.kafka.enabled:false}")
+    public void consume(List<ConsumerRecord<String, TransactionRequest>> records, Acknowledgment acknowledgment) {
+        long startNanos = System.nanoTime();
+
+        List<TransactionRequest> requests = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TransactionRequest> record : records) {
+            if (record.value() == null) {
+                malformed.increment();
+                logger.warn("Skipping undeserializable event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            } else {
+                requests.add(record.value());
+            }
+        }
+
+        if (!requests.isEmpty()) {
+            for (FraudDetectionResponse response : bulkTransactionService.analyzeBulk(requests)) {
+                if ("ERROR".equals(response.getStatus())) {
+                    rejected.increment();
+                    logger.warn("Rejected transaction event {}: {}", response.getTransactionId(), response.getTriggeredRules());
+                } else {
+                    processed.increment();
+                }
+            }
+        }
+        acknowledgment.acknowledge();
+
+        long now = System.currentTimeMillis();
+        for (ConsumerRecord<String, TransactionRequest> record : records) {
+            eventAge.record(Math.max(now - record.timestamp(), 0), TimeUnit.MILLISECONDS);
+        }
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        logger.debug("Ingested batch of {} transaction events", records.size());
+    }
+
+    private Counter recordCounter(String outcome) {
+        return Counter.builder("fraud.ingest.records")
+                .description("Transaction events consumed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
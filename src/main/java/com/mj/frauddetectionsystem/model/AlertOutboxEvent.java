@@ -0,0 +1,57 @@
+package com.mj.frauddetectionsystem.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Fraud alert message waiting to be relayed to Kafka. Written in the same database
+ * transaction as the alert itself and deleted once the broker has acknowledged it.
+ * A relay claims rows for a while before sending them, so other relays skip them.
+ */
+@Entity
+@Table(name = "alert_outbox")
+public class AlertOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "alert_outbox_ids")
+    @TableGenerator(name = "alert_outbox_ids", table = "id_generators", pkColumnName = "entity",
+                    valueColumnName = "next_val", pkColumnValue = "alert_outbox", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "transaction_id", nullable = false)
+    private String transactionId;
+    
+    // FraudAlertMessage serialized as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    // Constructors
+    public AlertOutboxEvent() {}
+    
+    public AlertOutboxEvent(String transactionId, String payload) {
+        this.transactionId = transactionId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+    
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+    public void setClaimedUntil(LocalDateTime claimedUntil) { this.claimedUntil = claimedUntil; }
+}
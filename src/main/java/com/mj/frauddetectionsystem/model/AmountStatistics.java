@@ -0,0 +1,99 @@
+package com.mj.frauddetectionsystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Running statistics over a user's transaction amounts.
+ *
+ * Updated in O(1) per transaction: count, sum, min and max directly, and mean and
+ * variance with Welford's method so they stay numerically stable over long histories.
+ */
+@Embeddable
+public class AmountStatistics {
+
+    @Column(name = "amount_count", nullable = false)
+    private long count;
+
+    @Column(name = "amount_sum", nullable = false, precision = 19, scale = 2)
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    @Column(name = "amount_mean", nullable = false)
+    private double mean;
+
+    // Sum of squared deviations from the mean (Welford's M2)
+    @Column(name = "amount_m2", nullable = false)
+    private double m2;
+
+    @Column(name = "amount_min", precision = 12, scale = 2)
+    private BigDecimal min;
+
+    @Column(name = "amount_max", precision = 12, scale = 2)
+    private BigDecimal max;
+
+    /**
+     * Add one transaction amount
+     */
+    public void record(BigDecimal amount) {
+        if (amount == null) {
+            return;
+        }
+        count++;
+        sum = sum == null ? amount : sum.add(amount);
+        double value = amount.doubleValue();
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (min == null || amount.compareTo(min) < 0) {
+            min = amount;
+        }
+        if (max == null || amount.compareTo(max) > 0) {
+            max = amount;
+        }
+    }
+
+    /**
+     * Replace the statistics with aggregates computed over the full history
+     *
+     * @param m2 Sum of squared deviations from the mean, computed by the database from
+     *           the deviations rather than from a sum of squares, which cancels badly
+     */
+    public void seed(long count, BigDecimal sum, double m2, BigDecimal min, BigDecimal max) {
+        this.count = count;
+        this.sum = sum != null ? sum : BigDecimal.ZERO;
+        this.mean = count > 0 ? this.sum.doubleValue() / count : 0.0;
+        this.m2 = count > 0 ? Math.max(m2, 0.0) : 0.0;
+        this.min = min;
+        this.max = max;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Get the mean amount rounded to cents, or null when no amounts were recorded
+     */
+    public BigDecimal getAverage() {
+        return count > 0 ? BigDecimal.valueOf(mean).setScale(2, RoundingMode.HALF_UP) : null;
+    }
+
+    /**
+     * Get the sample variance, or zero with fewer than two amounts
+     */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0.0;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public long getCount() { return count; }
+    public BigDecimal getSum() { return sum; }
+    public double getMean() { return mean; }
+    public BigDecimal getMin() { return min; }
+    public BigDecimal getMax() { return max; }
+}
@@ -0,0 +1,61 @@
+package com.mj.frauddetectionsystem.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exponentially decayed share of a user's transactions that were flagged as fraud.
+ * Recent activity dominates, which approximates a sliding window without rescanning it.
+ */
+@Embeddable
+public class DecayedFraudRatio {
+
+    @Column(name = "fraud_weight")
+    private double fraudWeight;
+
+    @Column(name = "activity_weight")
+    private double activityWeight;
+
+    // Epoch second both weights are decayed to
+    @Column(name = "fraud_ratio_decayed_at")
+    private long decayedAt;
+
+    /**
+     * Count one transaction at the given time
+     */
+    public void record(boolean fraudulent, long epochSecond, double halfLifeSeconds) {
+        double increment = 1.0;
+        if (epochSecond > decayedAt) {
+            double factor = Math.pow(0.5, (epochSecond - decayedAt) / halfLifeSeconds);
+            fraudWeight *= factor;
+            activityWeight *= factor;
+            decayedAt = epochSecond;
+        } else if (epochSecond < decayedAt) {
+            increment = Math.pow(0.5, (decayedAt - epochSecond) / halfLifeSeconds);
+        }
+        activityWeight += increment;
+        if (fraudulent) {
+            fraudWeight += increment;
+        }
+    }
+
+    public boolean isEmpty() {
+        return activityWeight == 0.0;
+    }
+
+    /**
+     * Get the decayed fraud ratio with four decimals, or null before any activity
+     */
+    public BigDecimal getRatio() {
+        if (activityWeight == 0.0) {
+            return null;
+        }
+        return BigDecimal.valueOf(fraudWeight / activityWeight).setScale(4, RoundingMode.HALF_UP);
+    }
+
+    public double getFraudWeight() { return fraudWeight; }
+    public double getActivityWeight() { return activityWeight; }
+    public long getDecayedAt() { return decayedAt; }
+}
@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 })
 public class FraudAlert {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "fraud_alert_ids")
+    @TableGenerator(name = "fraud_alert_ids", table = "id_generators", pkColumnName = "entity",
+                    valueColumnName = "next_val", pkColumnValue = "fraud_alerts", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
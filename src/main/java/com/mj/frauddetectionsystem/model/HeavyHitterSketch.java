@@ -0,0 +1,146 @@
+package com.mj.frauddetectionsystem.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Time-decayed Space-Saving sketch of the most frequent values for one user.
+ *
+ * Holds at most {@code capacity} values with exponentially decayed weights, so old
+ * activity fades out without rescanning history. Adding a value is O(capacity), a
+ * small constant. When the sketch is full, a new value replaces the lightest entry
+ * and inherits its weight, which bounds the over-estimate as in Space-Saving.
+ * Encoded as a compact string for storage on {@link UserProfile}.
+ */
+public final class HeavyHitterSketch {
+
+    private static final char ENTRY_SEPARATOR = ';';
+    private static final char WEIGHT_SEPARATOR = '=';
+
+    private final int capacity;
+    private final String[] keys;
+    private final double[] weights;
+    private int size;
+    // Epoch second the weights are decayed to
+    private long decayedAt;
+
+    public HeavyHitterSketch(int capacity) {
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.weights = new double[capacity];
+    }
+
+    /**
+     * Decode a sketch produced by {@link #encode(int)}; null or blank gives an empty sketch
+     */
+    public static HeavyHitterSketch parse(String encoded, int capacity) {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(capacity);
+        if (encoded == null || encoded.isBlank()) {
+            return sketch;
+        }
+        String[] parts = encoded.split(String.valueOf(ENTRY_SEPARATOR));
+        sketch.decayedAt = Long.parseLong(parts[0]);
+        for (int i = 1; i < parts.length && sketch.size < capacity; i++) {
+            int separator = parts[i].lastIndexOf(WEIGHT_SEPARATOR);
+            sketch.keys[sketch.size] = unescape(parts[i].substring(0, separator));
+            sketch.weights[sketch.size] = Double.parseDouble(parts[i].substring(separator + 1));
+            sketch.size++;
+        }
+        return sketch;
+    }
+
+    /**
+     * Count one occurrence of a value at the given time
+     *
+     * @param key Observed value
+     * @param epochSecond Time of the observation
+     * @param halfLifeSeconds Time for a weight to decay to half
+     */
+    public void add(String key, long epochSecond, double halfLifeSeconds) {
+        if (key == null) {
+            return;
+        }
+        double increment = 1.0;
+        if (epochSecond > decayedAt) {
+            double factor = Math.pow(0.5, (epochSecond - decayedAt) / halfLifeSeconds);
+            for (int i = 0; i < size; i++) {
+                weights[i] *= factor;
+            }
+            decayedAt = epochSecond;
+        } else if (epochSecond < decayedAt) {
+            // Late observation: weigh it as if it had been decayed already
+            increment = Math.pow(0.5, (decayedAt - epochSecond) / halfLifeSeconds);
+        }
+
+        int lightest = 0;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                weights[i] += increment;
+                return;
+            }
+            if (weights[i] < weights[lightest]) {
+                lightest = i;
+            }
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            weights[size] = increment;
+            size++;
+        } else {
+            keys[lightest] = key;
+            weights[lightest] += increment;
+        }
+    }
+
+    /**
+     * Get up to n values, heaviest first
+     */
+    public List<String> top(int n) {
+        Integer[] order = sortedIndexes();
+        List<String> top = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < order.length && i < n; i++) {
+            top.add(keys[order[i]]);
+        }
+        return top;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Encode the sketch, dropping the lightest entries if needed to stay within maxLength
+     */
+    public String encode(int maxLength) {
+        Integer[] order = sortedIndexes();
+        StringBuilder encoded = new StringBuilder().append(decayedAt);
+        for (Integer index : order) {
+            String entry = ENTRY_SEPARATOR + escape(keys[index]) + WEIGHT_SEPARATOR
+                    + String.format(Locale.ROOT, "%.4f", weights[index]);
+            if (encoded.length() + entry.length() > maxLength) {
+                break;
+            }
+            encoded.append(entry);
+        }
+        return encoded.toString();
+    }
+
+    private Integer[] sortedIndexes() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(weights[b], weights[a]));
+        return order;
+    }
+
+    private static String escape(String key) {
+        return key.replace("%", "%25").replace(";", "%3B").replace("=", "%3D");
+    }
+
+    private static String unescape(String key) {
+        return key.replace("%3D", "=").replace("%3B", ";").replace("%25", "%");
+    }
+}
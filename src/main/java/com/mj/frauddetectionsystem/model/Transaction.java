@@ -13,8 +13,11 @@ import java.util.List;
     @Index(name = "idx_amount", columnList = "amount")
 })
 public class Transaction {
+    // Pooled IDs from id_generators, unlike IDENTITY, let Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_ids")
+    @TableGenerator(name = "transaction_ids", table = "id_generators", pkColumnName = "entity",
+                    valueColumnName = "next_val", pkColumnValue = "transactions", allocationSize = 100)
     private Long id;
     
     @Column(name = "transaction_id", unique = true, nullable = false)
@@ -30,6 +30,20 @@ public class UserProfile {
     
     @Column(name = "income_range")
     private String incomeRange;
+    
+    @Embedded
+    private AmountStatistics amountStatistics = new AmountStatistics();
+    
+    @Embedded
+    private DecayedFraudRatio fraudRatio = new DecayedFraudRatio();
+    
+    // Encoded HeavyHitterSketch of spending locations
+    @Column(name = "location_sketch", length = 2000)
+    private String locationSketch;
+    
+    // Encoded HeavyHitterSketch of payment methods
+    @Column(name = "payment_method_sketch", length = 500)
+    private String paymentMethodSketch;
 
     // Constructors
     public UserProfile() {}
@@ -68,4 +82,26 @@ public class UserProfile {
     
     public String getIncomeRange() { return incomeRange; }
     public void setIncomeRange(String incomeRange) { this.incomeRange = incomeRange; }
+    
+    public AmountStatistics getAmountStatistics() {
+        if (amountStatistics == null) {
+            amountStatistics = new AmountStatistics();
+        }
+        return amountStatistics;
+    }
+    public void setAmountStatistics(AmountStatistics amountStatistics) { this.amountStatistics = amountStatistics; }
+    
+    public DecayedFraudRatio getFraudRatio() {
+        if (fraudRatio == null) {
+            fraudRatio = new DecayedFraudRatio();
+        }
+        return fraudRatio;
+    }
+    public void setFraudRatio(DecayedFraudRatio fraudRatio) { this.fraudRatio = fraudRatio; }
+    
+    public String getLocationSketch() { return locationSketch; }
+    public void setLocationSketch(String locationSketch) { this.locationSketch = locationSketch; }
+    
+    public String getPaymentMethodSketch() { return paymentMethodSketch; }
+    public void setPaymentMethodSketch(String paymentMethodSketch) { this.paymentMethodSketch = paymentMethodSketch; }
 }
@@ -0,0 +1,31 @@
+package com.mj.frauddetectionsystem.repository;
+
+import com.mj.frauddetectionsystem.model.AlertOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AlertOutboxRepository extends JpaRepository<AlertOutboxEvent, Long> {
+    
+    // Lock timeout -2 is SKIP LOCKED, so concurrent relays take disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM AlertOutboxEvent e WHERE e.claimedUntil IS NULL OR e.claimedUntil < :now ORDER BY e.id")
+    List<AlertOutboxEvent> lockOldestUnclaimed(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE AlertOutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+    int updateClaims(@Param("ids") Collection<Long> ids, @Param("claimedUntil") LocalDateTime claimedUntil);
+}
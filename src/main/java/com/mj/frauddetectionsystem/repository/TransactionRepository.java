@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,9 +29,27 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.user = :user AND t.timestamp > :cutoffTime ORDER BY t.timestamp DESC")
     List<Transaction> findUserTransactionsAfter(@Param("user") User user, @Param("cutoffTime") LocalDateTime cutoffTime);
     
+    // Each row is [user's external userId, timestamp]
+    @Query("SELECT t.user.userId, t.timestamp FROM Transaction t WHERE t.timestamp > :cutoffTime")
+    List<Object[]> findUserTimestampsAfter(@Param("cutoffTime") LocalDateTime cutoffTime);
+    
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.timestamp > :cutoffTime")
+    List<String> findTransactionIdsAfter(@Param("cutoffTime") LocalDateTime cutoffTime);
+    
+    // Each row is [transactionId, id]
+    @Query("SELECT t.transactionId, t.id FROM Transaction t WHERE t.transactionId IN :transactionIds")
+    List<Object[]> findKeysByTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.user u LEFT JOIN FETCH u.profile WHERE t.id IN :ids ORDER BY t.id")
+    List<Transaction> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT AVG(t.amount) FROM Transaction t WHERE t.user = :user")
     BigDecimal getAverageTransactionAmount(@Param("user") User user);
     
+    // Row of COUNT, SUM, Welford's M2 (null below two amounts), MIN and MAX used to seed running amount statistics
+    @Query("SELECT COUNT(t), SUM(t.amount), var_samp(t.amount) * (COUNT(t) - 1), MIN(t.amount), MAX(t.amount) FROM Transaction t WHERE t.user = :user")
+    List<Object[]> getAmountAggregates(@Param("user") User user);
+    
     @Query("SELECT t FROM Transaction t WHERE t.amount > :amount ORDER BY t.amount DESC")
     List<Transaction> findTransactionsAboveAmount(@Param("amount") BigDecimal amount);
     
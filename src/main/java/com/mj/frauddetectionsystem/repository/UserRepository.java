@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByUserId(String userId);
     
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.profile WHERE u.userId IN :userIds")
+    List<User> findWithProfileByUserIdIn(@Param("userIds") Collection<String> userIds);
+    
     Optional<User> findByEmail(String email);
     
     List<User> findByIsActiveTrue();
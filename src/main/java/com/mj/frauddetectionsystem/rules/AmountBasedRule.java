@@ -8,31 +8,53 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Component
 public class AmountBasedRule implements FraudDetectionRule {
     
+    static final String REASON_OVER_THRESHOLD = "AMOUNT_OVER_THRESHOLD";
+    static final String REASON_ABOVE_USER_AVERAGE = "AMOUNT_ABOVE_USER_AVERAGE";
+    
     @Value("${fraud.detection.rules.amount.threshold:10000.0}")
     private BigDecimal threshold;
     
+    @Value("${fraud.detection.rules.amount.time-budget-ms:0}")
+    private long timeBudgetMs;
+    
     @Autowired
     private TransactionRepository transactionRepository;
 
+    // Confidence is 0.3 x ratio: 30 basis points per hundredth of the ratio, capped at 0.8
+    private static final int OVER_THRESHOLD_WEIGHT = 30;
+    private static final int OVER_THRESHOLD_CAP = 8_000;
+    private static final long USER_AVERAGE_MULTIPLE_HUNDREDTHS = 500;
+
     @Override
-    public boolean isFraudulent(Transaction transaction) {
+    public RuleOutcome evaluate(Transaction transaction, EvaluationContext context) {
         // Check if amount exceeds threshold
         if (transaction.getAmount().compareTo(threshold) > 0) {
-            return true;
+            // Higher amounts get higher confidence scores
+            long ratio = Score.ratioHundredths(transaction.getAmount(), threshold.doubleValue());
+            int score = (int) Math.min(ratio * OVER_THRESHOLD_WEIGHT, OVER_THRESHOLD_CAP);
+            return RuleOutcome.flagged(score, List.of(REASON_OVER_THRESHOLD));
         }
         
         // Check if amount is significantly higher than user's average
-        BigDecimal userAverage = transactionRepository.getAverageTransactionAmount(transaction.getUser());
-        if (userAverage != null && userAverage.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal ratio = transaction.getAmount().divide(userAverage, 2, BigDecimal.ROUND_HALF_UP);
-            return ratio.compareTo(new BigDecimal("5.0")) > 0; // 5x their average
+        BigDecimal userAverage = context.getAverageAmount();
+        if (userAverage != null && userAverage.signum() > 0) {
+            long ratio = Score.ratioHundredths(transaction.getAmount(), userAverage.doubleValue());
+            if (ratio > USER_AVERAGE_MULTIPLE_HUNDREDTHS) { // 5x their average
+                return RuleOutcome.flagged(Score.ZERO, List.of(REASON_ABOVE_USER_AVERAGE));
+            }
         }
         
-        return false;
+        return RuleOutcome.pass();
+    }
+
+    @Override
+    public boolean isFraudulent(Transaction transaction) {
+        return evaluate(transaction, createContext(transaction)).isFraudulent();
     }
 
     @Override
@@ -40,16 +62,17 @@ public class AmountBasedRule implements FraudDetectionRule {
         return "Amount-Based Rule";
     }
     
+    @Override
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+    
     @Override
     public BigDecimal calculateConfidence(Transaction transaction) {
-        BigDecimal confidence = BigDecimal.ZERO;
-        
-        if (transaction.getAmount().compareTo(threshold) > 0) {
-            // Higher amounts get higher confidence scores
-            BigDecimal ratio = transaction.getAmount().divide(threshold, 2, BigDecimal.ROUND_HALF_UP);
-            confidence = ratio.multiply(new BigDecimal("0.3")).min(new BigDecimal("0.8"));
-        }
+        return evaluate(transaction, createContext(transaction)).getConfidence();
+    }
         
-        return confidence;
+    private EvaluationContext createContext(Transaction transaction) {
+        return new EvaluationContext(transaction, transactionRepository, 0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.mj.frauddetectionsystem.rules;
+
+import com.mj.frauddetectionsystem.model.AmountStatistics;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.UserProfile;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.state.UserSnapshotCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Per-transaction data shared by every rule during one evaluation.
+ *
+ * Each piece of user history is fetched lazily on first use and memoized, so the
+ * rules together issue at most one history query and one average query per
+ * transaction. Methods are synchronized because the engine may run rules in parallel.
+ * With a user snapshot the user entity itself is never read, so an uninitialized
+ * user reference stays uninitialized. Preceding transactions are the user's earlier,
+ * not yet stored transactions of the same batch; they count as history.
+ */
+public class EvaluationContext {
+
+    private final Transaction transaction;
+    private final TransactionRepository transactionRepository;
+    private final int historyWindowMinutes;
+    private final UserSnapshotCache.UserSnapshot userSnapshot;
+    private final List<Transaction> precedingTransactions;
+
+    private List<Transaction> recentHistory;
+    private LocalDateTime recentHistoryCutoff;
+    private boolean averageAmountLoaded;
+    private BigDecimal averageAmount;
+    private final Map<Integer, Map<String, Long>> merchantCountsByWindow = new HashMap<>();
+
+    /**
+     * @param transaction Transaction under evaluation
+     * @param transactionRepository Repository used to load user history on demand
+     * @param historyWindowMinutes Widest history window any rule will ask for
+     */
+    public EvaluationContext(Transaction transaction, TransactionRepository transactionRepository,
+                             int historyWindowMinutes) {
+        this(transaction, transactionRepository, historyWindowMinutes, null);
+    }
+
+    /**
+     * @param userSnapshot Cached facts about the transaction's user, or null to read the user entity
+     */
+    public EvaluationContext(Transaction transaction, TransactionRepository transactionRepository,
+                             int historyWindowMinutes, UserSnapshotCache.UserSnapshot userSnapshot) {
+        this(transaction, transactionRepository, historyWindowMinutes, userSnapshot, List.of());
+    }
+
+    /**
+     * @param precedingTransactions Earlier unsaved transactions of the same user, oldest first
+     */
+    public EvaluationContext(Transaction transaction, TransactionRepository transactionRepository,
+                             int historyWindowMinutes, UserSnapshotCache.UserSnapshot userSnapshot,
+                             List<Transaction> precedingTransactions) {
+        this.transaction = transaction;
+        this.transactionRepository = transactionRepository;
+        this.historyWindowMinutes = historyWindowMinutes;
+        this.userSnapshot = userSnapshot;
+        this.precedingTransactions = precedingTransactions;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * Get the external ID of the transaction's user
+     */
+    public String getUserId() {
+        if (userSnapshot != null) {
+            return userSnapshot.getUserId();
+        }
+        return transaction.getUser() != null ? transaction.getUser().getUserId() : null;
+    }
+
+    /**
+     * Get the user's transactions within the given window before this transaction
+     */
+    public synchronized List<Transaction> getRecentTransactions(int windowMinutes) {
+        LocalDateTime cutoff = transaction.getTimestamp().minusMinutes(windowMinutes);
+        if (recentHistory == null || cutoff.isBefore(recentHistoryCutoff)) {
+            // Fetch the widest window once; narrower windows are filtered in memory
+            LocalDateTime fetchCutoff = transaction.getTimestamp()
+                    .minusMinutes(Math.max(windowMinutes, historyWindowMinutes));
+            recentHistory = new ArrayList<>(transactionRepository.findUserTransactionsAfter(transaction.getUser(), fetchCutoff));
+            recentHistory.addAll(precedingAfter(fetchCutoff));
+            recentHistoryCutoff = fetchCutoff;
+        }
+        if (cutoff.equals(recentHistoryCutoff)) {
+            return recentHistory;
+        }
+        return recentHistory.stream()
+                .filter(t -> t.getTimestamp().isAfter(cutoff))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Count the user's transactions within the given window before this transaction
+     */
+    public int countRecentTransactions(int windowMinutes) {
+        return getRecentTransactions(windowMinutes).size();
+    }
+
+    /**
+     * Count only the preceding unsaved transactions within the given window, for rules
+     * that take stored history from elsewhere
+     */
+    public int countPrecedingTransactions(int windowMinutes) {
+        return precedingAfter(transaction.getTimestamp().minusMinutes(windowMinutes)).size();
+    }
+
+    /**
+     * Count the user's recent transactions at the given merchant
+     */
+    public synchronized long countRecentTransactionsAtMerchant(String merchantName, int windowMinutes) {
+        Map<String, Long> merchantCounts = merchantCountsByWindow.get(windowMinutes);
+        if (merchantCounts == null) {
+            merchantCounts = getRecentTransactions(windowMinutes).stream()
+                    .filter(t -> t.getMerchantName() != null)
+                    .collect(Collectors.groupingBy(Transaction::getMerchantName, Collectors.counting()));
+            merchantCountsByWindow.put(windowMinutes, merchantCounts);
+        }
+        return merchantCounts.getOrDefault(merchantName, 0L);
+    }
+
+    /**
+     * Get the user's average transaction amount, or null when the user has no history.
+     * Served from the running statistics on the user profile; the AVG query is only
+     * used for profiles whose statistics have not been seeded yet.
+     */
+    public synchronized BigDecimal getAverageAmount() {
+        if (!averageAmountLoaded) {
+            BigDecimal profileAverage;
+            if (userSnapshot != null) {
+                profileAverage = userSnapshot.getAverageAmount();
+            } else {
+                UserProfile profile = transaction.getUser() != null ? transaction.getUser().getProfile() : null;
+                AmountStatistics statistics = profile != null ? profile.getAmountStatistics() : null;
+                profileAverage = statistics != null ? statistics.getAverage() : null;
+            }
+            averageAmount = profileAverage != null
+                    ? profileAverage
+                    : transactionRepository.getAverageTransactionAmount(transaction.getUser());
+            averageAmountLoaded = true;
+        }
+        return averageAmount;
+    }
+
+    private List<Transaction> precedingAfter(LocalDateTime cutoff) {
+        return precedingTransactions.stream()
+                .filter(t -> t.getTimestamp().isAfter(cutoff))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,16 +1,36 @@
 package com.mj.frauddetectionsystem.rules;
 
 
+import com.mj.frauddetectionsystem.dto.RuleStats;
 import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.state.UserSnapshotCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class FraudDetectionEngine {
@@ -18,46 +38,145 @@ public class FraudDetectionEngine {
     private static final Logger logger = LoggerFactory.getLogger(FraudDetectionEngine.class);
     
     private final List<FraudDetectionRule> rules = new ArrayList<>();
-    private final Map<String, Integer> ruleViolationCounts = new HashMap<>();
+    private final Map<String, RuleMetrics> ruleMetrics = new ConcurrentHashMap<>();
+    private int historyWindowMinutes;
+    // Sequential evaluation order; replaced wholesale when the adaptive ordering changes it
+    private volatile List<FraudDetectionRule> evaluationOrder = List.of();
+    private final AtomicLong evaluationCount = new AtomicLong();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.engine.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    @Value("${fraud.detection.engine.parallel.pool-size:8}")
+    private int poolSize;
+
+    @Value("${fraud.detection.engine.parallel.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${fraud.detection.engine.rule-timeout-ms:250}")
+    private long defaultRuleTimeoutMs;
+
+    @Value("${fraud.detection.engine.adaptive-ordering.enabled:false}")
+    private boolean adaptiveOrderingEnabled;
+
+    @Value("${fraud.detection.engine.adaptive-ordering.reorder-interval:1000}")
+    private int reorderInterval = 1000;
+
+    @Value("${fraud.detection.engine.short-circuit.policy:NONE}")
+    private ShortCircuitPolicy shortCircuitPolicy = ShortCircuitPolicy.NONE;
+
+    @Value("${fraud.detection.engine.short-circuit.decline-threshold:0.8}")
+    private double declineThreshold = 0.8;
+
+    private int declineThresholdScore;
+
+    private ThreadPoolExecutor ruleExecutor;
+
+    @PostConstruct
+    public void init() {
+        declineThresholdScore = Score.fromDouble(declineThreshold);
+        if (meterRegistry == null) {
+            meterRegistry = new SimpleMeterRegistry();
+        }
+        if (parallelEnabled) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ruleExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "fraud-rule-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // Saturated: reject, and the rule counts as timed out rather than stalling the request
+                    new ThreadPoolExecutor.AbortPolicy());
+            logger.info("Parallel rule evaluation enabled: {} threads, default rule budget {}ms",
+                       poolSize, defaultRuleTimeoutMs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ruleExecutor != null) {
+            ruleExecutor.shutdownNow();
+        }
+    }
 
     public void addRule(FraudDetectionRule rule) {
         rules.add(rule);
-        ruleViolationCounts.put(rule.getRuleName(), 0);
+        ruleMetrics.put(rule.getRuleName(), new RuleMetrics(rule.getRuleName(), meterRegistry));
+        evaluationOrder = List.copyOf(rules);
+        historyWindowMinutes = Math.max(historyWindowMinutes, rule.getHistoryWindowMinutes());
         logger.info("Added fraud detection rule: {}", rule.getRuleName());
     }
 
     public FraudDetectionResult analyzeTransaction(Transaction transaction) {
+        return analyzeTransaction(transaction, null, List.of());
+    }
+
+    /**
+     * Analyze a transaction, reading user facts from a snapshot instead of the user entity
+     */
+    public FraudDetectionResult analyzeTransaction(Transaction transaction, UserSnapshotCache.UserSnapshot userSnapshot) {
+        return analyzeTransaction(transaction, userSnapshot, List.of());
+    }
+
+    /**
+     * Analyze a transaction of a batch, counting the user's earlier, not yet stored
+     * transactions of the batch as history
+     */
+    public FraudDetectionResult analyzeTransaction(Transaction transaction, List<Transaction> precedingTransactions) {
+        return analyzeTransaction(transaction, null, precedingTransactions);
+    }
+
+    private FraudDetectionResult analyzeTransaction(Transaction transaction, UserSnapshotCache.UserSnapshot userSnapshot,
+                                                    List<Transaction> precedingTransactions) {
         logger.debug("Analyzing transaction: {}", transaction.getTransactionId());
         
         List<String> triggeredRules = new ArrayList<>();
+        List<String> timedOutRules = new ArrayList<>();
+        List<String> reasonCodes = new ArrayList<>();
         boolean isFraudulent = false;
-        BigDecimal totalConfidence = BigDecimal.ZERO;
+        long totalScore = Score.ZERO;
         int ruleCount = 0;
 
-        for (FraudDetectionRule rule : rules) {
-            try {
-                if (rule.isFraudulent(transaction)) {
-                    String ruleName = rule.getRuleName();
-                    triggeredRules.add(ruleName);
-                    ruleViolationCounts.put(ruleName, ruleViolationCounts.get(ruleName) + 1);
+        // Shared across rules so user history is loaded at most once per transaction
+        EvaluationContext context = new EvaluationContext(transaction, transactionRepository, historyWindowMinutes,
+                                                          userSnapshot, precedingTransactions);
+
+        List<RuleVerdict> verdicts = parallelEnabled
+                ? evaluateInParallel(transaction, context)
+                : evaluateSequentially(transaction, context);
+
+        for (RuleVerdict verdict : verdicts) {
+            String ruleName = verdict.rule.getRuleName();
+            if (verdict.timedOut) {
+                timedOutRules.add(ruleName);
+                ruleMetrics.get(ruleName).recordTimeout();
+                continue;
+            }
+            RuleOutcome outcome = verdict.outcome;
+            if (outcome.isFraudulent()) {
+                triggeredRules.add(ruleName);
+                reasonCodes.addAll(outcome.getReasonCodes());
                     
-                    BigDecimal confidence = rule.calculateConfidence(transaction);
-                    totalConfidence = totalConfidence.add(confidence);
-                    ruleCount++;
+                totalScore += outcome.getScore();
+                ruleCount++;
                     
-                    isFraudulent = true;
+                isFraudulent = true;
                     
-                    logger.debug("Rule triggered: {} with confidence: {}", ruleName, confidence);
-                }
-            } catch (Exception e) {
-                logger.error("Error executing rule {}: {}", rule.getRuleName(), e.getMessage(), e);
+                logger.debug("Rule triggered: {} with score: {} reasons: {}",
+                            ruleName, outcome.getScore(), outcome.getReasonCodes());
             }
         }
 
-        // Calculate average confidence
-        BigDecimal averageConfidence = ruleCount > 0 ? 
-            totalConfidence.divide(new BigDecimal(ruleCount), 2, BigDecimal.ROUND_HALF_UP) : 
-            BigDecimal.ZERO;
+        // Calculate average confidence; the only BigDecimal built on this path
+        BigDecimal averageConfidence = Score.average(totalScore, ruleCount);
 
         // Update transaction
         transaction.setFraudulent(isFraudulent);
@@ -72,18 +191,193 @@ public class FraudDetectionEngine {
             logger.debug("Transaction {} approved", transaction.getTransactionId());
         }
 
-        return new FraudDetectionResult(transaction, isFraudulent, triggeredRules, averageConfidence);
+        if (!timedOutRules.isEmpty()) {
+            logger.warn("Transaction {} evaluated without timed out rules: {}",
+                       transaction.getTransactionId(), timedOutRules);
+        }
+
+        return new FraudDetectionResult(transaction, isFraudulent, triggeredRules, averageConfidence,
+                                        timedOutRules, reasonCodes);
+    }
+
+    /**
+     * Evaluate rules on the calling thread in the current evaluation order, stopping
+     * early when the short-circuit policy allows it
+     */
+    private List<RuleVerdict> evaluateSequentially(Transaction transaction, EvaluationContext context) {
+        List<FraudDetectionRule> order = evaluationOrder;
+        List<RuleVerdict> verdicts = new ArrayList<>(order.size());
+        long triggeredScore = 0;
+        int triggeredCount = 0;
+        for (FraudDetectionRule rule : order) {
+            RuleVerdict verdict;
+            try {
+                verdict = evaluateRule(rule, transaction, context);
+            } catch (Exception e) {
+                ruleMetrics.get(rule.getRuleName()).recordError();
+                logger.error("Error executing rule {}: {}", rule.getRuleName(), e.getMessage(), e);
+                continue;
+            }
+            verdicts.add(verdict);
+
+            RuleOutcome outcome = verdict.outcome;
+            if (outcome.isFraudulent()) {
+                triggeredScore += outcome.getScore();
+                triggeredCount++;
+                if (shortCircuitPolicy.stopsOnDecline() && triggeredScore >= (long) declineThresholdScore * triggeredCount) {
+                    logger.debug("Transaction {} reached the decline threshold after {} of {} rules",
+                                transaction.getTransactionId(), verdicts.size(), order.size());
+                    break;
+                }
+            } else if (outcome.isConclusive() && triggeredCount == 0 && shortCircuitPolicy.stopsOnApproval()) {
+                logger.debug("Transaction {} approved conclusively by {} after {} of {} rules",
+                            transaction.getTransactionId(), rule.getRuleName(), verdicts.size(), order.size());
+                break;
+            }
+        }
+
+        if (adaptiveOrderingEnabled && evaluationCount.incrementAndGet() % reorderInterval == 0) {
+            reorderRules();
+        }
+        return verdicts;
+    }
+
+    /**
+     * Put cheap, selective rules first: sort by expected cost per decisive outcome
+     */
+    private void reorderRules() {
+        Map<FraudDetectionRule, Double> ranks = new HashMap<>();
+        for (FraudDetectionRule rule : rules) {
+            ranks.put(rule, ruleMetrics.get(rule.getRuleName()).getStatistics().getRank());
+        }
+        List<FraudDetectionRule> reordered = new ArrayList<>(rules);
+        reordered.sort(Comparator.comparingDouble(ranks::get));
+        if (!reordered.equals(evaluationOrder)) {
+            evaluationOrder = List.copyOf(reordered);
+            logger.info("Rule evaluation order changed to {}",
+                       reordered.stream().map(FraudDetectionRule::getRuleName).toList());
+        }
+    }
+
+    /**
+     * Fan rules out on the rule executor and join them against their time budgets.
+     * Budgets are measured from the moment the fan-out starts, so the call never
+     * waits longer than the largest budget. Rules the saturated executor rejects, and
+     * rules over budget, count as timed out; the latter are interrupted to free their
+     * threads.
+     */
+    private List<RuleVerdict> evaluateInParallel(Transaction transaction, EvaluationContext context) {
+        long startNanos = System.nanoTime();
+        List<Future<RuleVerdict>> futures = new ArrayList<>(rules.size());
+        for (FraudDetectionRule rule : rules) {
+            try {
+                futures.add(ruleExecutor.submit(() -> evaluateRule(rule, transaction, context)));
+            } catch (RejectedExecutionException e) {
+                futures.add(null);
+            }
+        }
+
+        List<RuleVerdict> verdicts = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            FraudDetectionRule rule = rules.get(i);
+            Future<RuleVerdict> future = futures.get(i);
+            if (future == null) {
+                logger.warn("Rule {} rejected by the saturated rule executor for transaction {}",
+                           rule.getRuleName(), transaction.getTransactionId());
+                verdicts.add(RuleVerdict.timedOut(rule));
+                continue;
+            }
+            long budgetNanos = TimeUnit.MILLISECONDS.toNanos(resolveTimeBudgetMs(rule));
+            long remainingNanos = budgetNanos - (System.nanoTime() - startNanos);
+            try {
+                verdicts.add(future.get(Math.max(remainingNanos, 0L), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                logger.warn("Rule {} exceeded its {}ms budget for transaction {}",
+                           rule.getRuleName(), resolveTimeBudgetMs(rule), transaction.getTransactionId());
+                verdicts.add(RuleVerdict.timedOut(rule));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                ruleMetrics.get(rule.getRuleName()).recordError();
+                logger.error("Error executing rule {}: {}", rule.getRuleName(), cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                verdicts.add(RuleVerdict.timedOut(rule));
+            }
+        }
+        return verdicts;
+    }
+
+    private RuleVerdict evaluateRule(FraudDetectionRule rule, Transaction transaction, EvaluationContext context) {
+        long startNanos = System.nanoTime();
+        RuleOutcome outcome = rule.evaluate(transaction, context);
+        ruleMetrics.get(rule.getRuleName()).recordEvaluation(System.nanoTime() - startNanos, outcome);
+        return new RuleVerdict(rule, outcome, false);
+    }
+
+    private long resolveTimeBudgetMs(FraudDetectionRule rule) {
+        long budget = rule.getTimeBudgetMs();
+        return budget > 0 ? budget : defaultRuleTimeoutMs;
     }
 
     public Map<String, Integer> getRuleViolationCounts() {
-        return new HashMap<>(ruleViolationCounts);
+        Map<String, Integer> counts = new HashMap<>();
+        ruleMetrics.forEach((rule, metrics) -> counts.put(rule, (int) metrics.getHits()));
+        return counts;
+    }
+
+    /**
+     * Get counters and latency percentiles for every rule, in evaluation order
+     */
+    public List<RuleStats> getRuleStats() {
+        List<RuleStats> stats = new ArrayList<>();
+        List<String> order = getEvaluationOrder();
+        for (int i = 0; i < order.size(); i++) {
+            RuleStats ruleStats = ruleMetrics.get(order.get(i)).snapshot();
+            ruleStats.setEvaluationPosition(i + 1);
+            stats.add(ruleStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Get the rule names in the order sequential evaluation currently uses
+     */
+    public List<String> getEvaluationOrder() {
+        return evaluationOrder.stream().map(FraudDetectionRule::getRuleName).toList();
     }
 
     public void generateReport() {
         logger.info("=== FRAUD DETECTION ENGINE REPORT ===");
         logger.info("Active rules: {}", rules.size());
         logger.info("Rule violation summary:");
-        ruleViolationCounts.forEach((rule, count) -> 
+        getRuleViolationCounts().forEach((rule, count) -> 
             logger.info("- {}: {} violations", rule, count));
+        logger.info("Evaluation order: {}", getEvaluationOrder());
+        for (RuleStats stats : getRuleStats()) {
+            logger.info("- {}: {} evaluations, {} errors, {} timeouts, p50 {}ms, p99 {}ms",
+                       stats.getRuleName(), stats.getEvaluations(), stats.getErrors(), stats.getTimeouts(),
+                       String.format("%.2f", stats.getP50Ms()), String.format("%.2f", stats.getP99Ms()));
+        }
+    }
+
+    /**
+     * Outcome of a single rule evaluation, collected before aggregation
+     */
+    private static final class RuleVerdict {
+        private final FraudDetectionRule rule;
+        private final RuleOutcome outcome;
+        private final boolean timedOut;
+
+        private RuleVerdict(FraudDetectionRule rule, RuleOutcome outcome, boolean timedOut) {
+            this.rule = rule;
+            this.outcome = outcome;
+            this.timedOut = timedOut;
+        }
+
+        private static RuleVerdict timedOut(FraudDetectionRule rule) {
+            return new RuleVerdict(rule, RuleOutcome.pass(), true);
+        }
     }
 }
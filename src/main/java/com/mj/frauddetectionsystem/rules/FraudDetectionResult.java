@@ -2,6 +2,7 @@ package com.mj.frauddetectionsystem.rules;
 
 import com.mj.frauddetectionsystem.model.Transaction;
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.List;
 
 public class FraudDetectionResult {
@@ -9,26 +10,39 @@ public class FraudDetectionResult {
     private final boolean isFraudulent;
     private final List<String> triggeredRules;
     private final BigDecimal confidenceScore;
+    private final List<String> timedOutRules;
+    private final List<String> reasonCodes;
     private final long timestamp;
 
     public FraudDetectionResult(Transaction transaction, boolean isFraudulent, 
                               List<String> triggeredRules, BigDecimal confidenceScore) {
+        this(transaction, isFraudulent, triggeredRules, confidenceScore,
+             Collections.emptyList(), Collections.emptyList());
+    }
+
+    public FraudDetectionResult(Transaction transaction, boolean isFraudulent,
+                              List<String> triggeredRules, BigDecimal confidenceScore,
+                              List<String> timedOutRules, List<String> reasonCodes) {
         this.transaction = transaction;
         this.isFraudulent = isFraudulent;
         this.triggeredRules = triggeredRules;
         this.confidenceScore = confidenceScore;
-        this.timestamp = System.currentTimeMillis();
+        this.timedOutRules = timedOutRules;
+        this.reasonCodes = reasonCodes;
+this.timestamp = System.currentTimeMillis();
     }
 
     public Transaction getTransaction() { return transaction; }
     public boolean isFraudulent() { return isFraudulent; }
     public List<String> getTriggeredRules() { return triggeredRules; }
     public BigDecimal getConfidenceScore() { return confidenceScore; }
-    public long getTimestamp() { return timestamp; }
+    public List<String> getTimedOutRules() { return timedOutRules; }
+    public List<String> getReasonCodes() { return reasonCodes; }
+public long getTimestamp() { return timestamp; }
 
     @Override
     public String toString() {
-        return String.format("FraudDetectionResult{txnId='%s', fraudulent=%s, confidence=%.2f, rules=%s}", 
-                transaction.getTransactionId(), isFraudulent, confidenceScore, triggeredRules);
+        return String.format("FraudDetectionResult{txnId='%s', fraudulent=%s, confidence=%.2f, rules=%s, timedOut=%s}", 
+                transaction.getTransactionId(), isFraudulent, confidenceScore, triggeredRules, timedOutRules);
     }
 }
\ No newline at end of file
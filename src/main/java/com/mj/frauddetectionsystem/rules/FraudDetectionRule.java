@@ -2,9 +2,39 @@ package com.mj.frauddetectionsystem.rules;
 
 import com.mj.frauddetectionsystem.model.Transaction;
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface FraudDetectionRule {
     boolean isFraudulent(Transaction transaction);
     String getRuleName();
     BigDecimal calculateConfidence(Transaction transaction);
+
+    /**
+     * Evaluate verdict, confidence and reasons in a single pass, reading user data
+     * through the context shared by all rules for this transaction.
+     * Rules should override this; isFraudulent and calculateConfidence then become
+     * adapters over it. The default keeps rules written against the two-method API working.
+     */
+    default RuleOutcome evaluate(Transaction transaction, EvaluationContext context) {
+        if (!isFraudulent(transaction)) {
+            return RuleOutcome.pass();
+        }
+        return RuleOutcome.flagged(calculateConfidence(transaction), List.of(getRuleName()));
+    }
+
+    /**
+     * Widest user-history window, in minutes, this rule reads from the evaluation context.
+     * The engine fetches that window once and shares it between rules.
+     */
+    default int getHistoryWindowMinutes() {
+        return 0;
+    }
+
+    /**
+     * Time budget for this rule when the engine evaluates rules in parallel.
+     * A value of zero or less falls back to the engine-wide default.
+     */
+    default long getTimeBudgetMs() {
+        return 0L;
+    }
 }
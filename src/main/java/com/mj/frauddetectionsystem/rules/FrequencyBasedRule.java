@@ -3,33 +3,50 @@ package com.mj.frauddetectionsystem.rules;
 
 import com.mj.frauddetectionsystem.model.Transaction;
 import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.state.UserVelocityStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Component
 public class FrequencyBasedRule implements FraudDetectionRule {
     
+    static final String REASON_HIGH_FREQUENCY = "HIGH_TRANSACTION_FREQUENCY";
+    
     @Value("${fraud.detection.rules.frequency.max-transactions:5}")
     private int maxTransactions;
     
     @Value("${fraud.detection.rules.frequency.time-window-minutes:30}")
     private int timeWindowMinutes;
     
+    @Value("${fraud.detection.rules.frequency.time-budget-ms:0}")
+    private long timeBudgetMs;
+    
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private UserVelocityStore velocityStore;
+
     @Override
-    public boolean isFraudulent(Transaction transaction) {
-        LocalDateTime cutoffTime = transaction.getTimestamp().minusMinutes(timeWindowMinutes);
-        List<Transaction> recentTransactions = transactionRepository.findUserTransactionsAfter(
-            transaction.getUser(), cutoffTime);
+    public RuleOutcome evaluate(Transaction transaction, EvaluationContext context) {
+        int recentCount = countRecentTransactions(transaction, context);
         
-        return recentTransactions.size() >= maxTransactions;
+        if (recentCount >= maxTransactions) {
+            // Higher frequency = higher confidence
+            double ratio = (double) recentCount / maxTransactions;
+            return RuleOutcome.flagged(Score.fromDouble(Math.min(ratio * 0.6, 0.9)), List.of(REASON_HIGH_FREQUENCY));
+        }
+        
+        return RuleOutcome.pass();
+    }
+
+    @Override
+    public boolean isFraudulent(Transaction transaction) {
+        return evaluate(transaction, createContext(transaction)).isFraudulent();
     }
 
     @Override
@@ -37,19 +54,37 @@ public class FrequencyBasedRule implements FraudDetectionRule {
         return "Frequency-Based Rule";
     }
     
+    @Override
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+    
+    @Override
+    public int getHistoryWindowMinutes() {
+        return timeWindowMinutes;
+    }
+    
     @Override
     public BigDecimal calculateConfidence(Transaction transaction) {
-        LocalDateTime cutoffTime = transaction.getTimestamp().minusMinutes(timeWindowMinutes);
-        List<Transaction> recentTransactions = transactionRepository.findUserTransactionsAfter(
-            transaction.getUser(), cutoffTime);
-        
-        if (recentTransactions.size() >= maxTransactions) {
-            // Higher frequency = higher confidence
-            double ratio = (double) recentTransactions.size() / maxTransactions;
-            return new BigDecimal(Math.min(ratio * 0.6, 0.9));
+        return evaluate(transaction, createContext(transaction)).getConfidence();
+    }
+    
+    /**
+     * Serve the count from the in-memory velocity store, falling back to user history
+     * until it is ready or when another instance owns the user. The store only holds
+     * stored transactions, so unsaved ones earlier in the batch are added.
+     */
+    private int countRecentTransactions(Transaction transaction, EvaluationContext context) {
+        String userId = context.getUserId();
+        if (velocityStore.isReadyFor(userId)) {
+            return velocityStore.countAfter(userId, transaction.getTimestamp().minusMinutes(timeWindowMinutes))
+                    + context.countPrecedingTransactions(timeWindowMinutes);
         }
-        
-        return BigDecimal.ZERO;
+        return context.countRecentTransactions(timeWindowMinutes);
+    }
+    
+    private EvaluationContext createContext(Transaction transaction) {
+        return new EvaluationContext(transaction, transactionRepository, timeWindowMinutes);
     }
 }
 
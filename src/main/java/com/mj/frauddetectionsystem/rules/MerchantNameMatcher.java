@@ -0,0 +1,228 @@
+package com.mj.frauddetectionsystem.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compiled multi-pattern matcher for merchant names (Aho-Corasick).
+ *
+ * Patterns are folded to upper case and compiled once into a dense transition
+ * table, so a name is scanned in a single linear pass regardless of how many
+ * patterns are loaded, and matching allocates nothing. Instances are immutable
+ * and safe to share between threads.
+ */
+public final class MerchantNameMatcher {
+
+    /**
+     * Pattern classes in increasing order of severity
+     */
+    public enum PatternClass {
+        SUSPICIOUS,
+        HIGH_RISK,
+        CRITICAL_RISK
+    }
+
+    private static final PatternClass[] PATTERN_CLASSES = PatternClass.values();
+    private static final int MOST_SEVERE_MASK = 1 << (PATTERN_CLASSES.length - 1);
+    private static final int ASCII_LIMIT = 128;
+
+    // Alphabet index per ASCII char; 0 means "not used by any pattern"
+    private final int[] asciiIndex;
+    // Non-ASCII pattern chars, sorted, with their alphabet indexes
+    private final char[] extraChars;
+    private final int[] extraIndex;
+    private final int alphabetSize;
+    // delta[state * alphabetSize + symbol] = next state
+    private final int[] delta;
+    // Bitmask of pattern classes ending at each state, including via failure links
+    private final int[] outputMask;
+    private final int patternCount;
+
+    private MerchantNameMatcher(int[] asciiIndex, char[] extraChars, int[] extraIndex, int alphabetSize,
+                                int[] delta, int[] outputMask, int patternCount) {
+        this.asciiIndex = asciiIndex;
+        this.extraChars = extraChars;
+        this.extraIndex = extraIndex;
+        this.alphabetSize = alphabetSize;
+        this.delta = delta;
+        this.outputMask = outputMask;
+        this.patternCount = patternCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the most severe pattern class found in the name, or null when nothing matches
+     */
+    public PatternClass match(CharSequence name) {
+        int mask = matchMask(name);
+        return mask == 0 ? null : PATTERN_CLASSES[31 - Integer.numberOfLeadingZeros(mask)];
+    }
+
+    /**
+     * Check whether the name contains any pattern
+     */
+    public boolean matchesAny(CharSequence name) {
+        return matchMask(name) != 0;
+    }
+
+    /**
+     * Get the bitmask of pattern classes found in the name, indexed by {@link PatternClass#ordinal()}
+     */
+    public int matchMask(CharSequence name) {
+        if (name == null) {
+            return 0;
+        }
+        int state = 0;
+        int mask = 0;
+        for (int i = 0, length = name.length(); i < length; i++) {
+            state = delta[state * alphabetSize + symbolOf(Character.toUpperCase(name.charAt(i)))];
+            mask |= outputMask[state];
+            if ((mask & MOST_SEVERE_MASK) != 0) {
+                break; // Nothing more severe can be found
+            }
+        }
+        return mask;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    private int symbolOf(char c) {
+        if (c < ASCII_LIMIT) {
+            return asciiIndex[c];
+        }
+        int pos = Arrays.binarySearch(extraChars, c);
+        return pos >= 0 ? extraIndex[pos] : 0;
+    }
+
+    /**
+     * Collects patterns and compiles them into a {@link MerchantNameMatcher}
+     */
+    public static final class Builder {
+
+        private final Map<String, Integer> patterns = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(String pattern, PatternClass patternClass) {
+            if (pattern != null && !pattern.isBlank()) {
+                patterns.merge(foldCase(pattern.trim()), 1 << patternClass.ordinal(), (a, b) -> a | b);
+            }
+            return this;
+        }
+
+        public Builder addAll(Collection<String> patterns, PatternClass patternClass) {
+            for (String pattern : patterns) {
+                add(pattern, patternClass);
+            }
+            return this;
+        }
+
+        public MerchantNameMatcher build() {
+            // Assign a compact alphabet index to every char used by a pattern
+            TreeSet<Character> chars = new TreeSet<>();
+            for (String pattern : patterns.keySet()) {
+                for (int i = 0; i < pattern.length(); i++) {
+                    chars.add(pattern.charAt(i));
+                }
+            }
+            int[] asciiIndex = new int[ASCII_LIMIT];
+            List<Character> extra = new ArrayList<>();
+            int alphabetSize = 1;
+            for (char c : chars) {
+                if (c < ASCII_LIMIT) {
+                    asciiIndex[c] = alphabetSize++;
+                } else {
+                    extra.add(c);
+                }
+            }
+            char[] extraChars = new char[extra.size()];
+            int[] extraIndex = new int[extra.size()];
+            for (int i = 0; i < extraChars.length; i++) {
+                extraChars[i] = extra.get(i);
+                extraIndex[i] = alphabetSize++;
+            }
+
+            // Build the trie; -1 marks a missing edge until failure links fill it in
+            int maxStates = 1;
+            for (String pattern : patterns.keySet()) {
+                maxStates += pattern.length();
+            }
+            int[] delta = new int[maxStates * alphabetSize];
+            Arrays.fill(delta, -1);
+            int[] outputMask = new int[maxStates];
+            int stateCount = 1;
+            for (Map.Entry<String, Integer> entry : patterns.entrySet()) {
+                String pattern = entry.getKey();
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    int slot = state * alphabetSize + symbolOf(pattern.charAt(i), asciiIndex, extraChars, extraIndex);
+                    if (delta[slot] < 0) {
+                        delta[slot] = stateCount++;
+                    }
+                    state = delta[slot];
+                }
+                outputMask[state] |= entry.getValue();
+            }
+
+            // Breadth-first pass turns the trie into a complete automaton
+            int[] failure = new int[stateCount];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = delta[symbol];
+                if (next < 0) {
+                    delta[symbol] = 0;
+                } else {
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputMask[state] |= outputMask[failure[state]];
+                for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                    int slot = state * alphabetSize + symbol;
+                    int fallback = delta[failure[state] * alphabetSize + symbol];
+                    if (delta[slot] < 0) {
+                        delta[slot] = fallback;
+                    } else {
+                        failure[delta[slot]] = fallback;
+                        queue.add(delta[slot]);
+                    }
+                }
+            }
+
+            return new MerchantNameMatcher(asciiIndex, extraChars, extraIndex, alphabetSize,
+                    Arrays.copyOf(delta, stateCount * alphabetSize), Arrays.copyOf(outputMask, stateCount),
+                    patterns.size());
+        }
+
+        // Fold char by char, exactly as names are folded while scanning
+        private static String foldCase(String pattern) {
+            char[] folded = new char[pattern.length()];
+            for (int i = 0; i < folded.length; i++) {
+                folded[i] = Character.toUpperCase(pattern.charAt(i));
+            }
+            return new String(folded);
+        }
+
+        private static int symbolOf(char c, int[] asciiIndex, char[] extraChars, int[] extraIndex) {
+            if (c < ASCII_LIMIT) {
+                return asciiIndex[c];
+            }
+            return extraIndex[Arrays.binarySearch(extraChars, c)];
+        }
+    }
+}
@@ -4,6 +4,8 @@ package com.mj.frauddetectionsystem.rules;
 import com.mj.frauddetectionsystem.model.Transaction;
 import com.mj.frauddetectionsystem.model.MerchantCategory;
 import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +13,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +27,9 @@ public class MerchantRiskRule implements FraudDetectionRule {
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private MerchantCategoryCache merchantCategoryCache;
+    
     @Value("${fraud.detection.rules.merchant.high-risk-threshold:500.0}")
     private BigDecimal highRiskThreshold;
     
@@ -34,6 +39,15 @@ public class MerchantRiskRule implements FraudDetectionRule {
     @Value("${fraud.detection.rules.merchant.enable-merchant-velocity:true}")
     private boolean enableMerchantVelocityCheck;
     
+    @Value("${fraud.detection.rules.merchant.time-budget-ms:0}")
+    private long timeBudgetMs;
+    
+    // Extra watch-list entries on top of the built-in patterns
+    @Value("${fraud.detection.rules.merchant.suspicious-patterns:}")
+    private List<String> extraSuspiciousPatterns = List.of();
+    
+    private MerchantNameMatcher nameMatcher;
+    
     // High-risk merchant patterns
     private static final Set<String> HIGH_RISK_MERCHANTS = Set.of(
         "CRYPTO", "GAMBLING", "ADULT", "PREPAID", "WIRE_TRANSFER",
@@ -52,115 +66,160 @@ public class MerchantRiskRule implements FraudDetectionRule {
         "QUICK_LOAN", "INSTANT_MONEY", "EASY_CASH", "FAST_MONEY"
     );
     
-    // Risk multipliers by category
-    private static final Map<MerchantCategory.RiskLevel, BigDecimal> RISK_MULTIPLIERS = Map.of(
-        MerchantCategory.RiskLevel.LOW, new BigDecimal("0.1"),
-        MerchantCategory.RiskLevel.MEDIUM, new BigDecimal("0.4"),
-        MerchantCategory.RiskLevel.HIGH, new BigDecimal("0.7"),
-        MerchantCategory.RiskLevel.CRITICAL, new BigDecimal("0.95")
+    static final String REASON_HIGH_RISK_CATEGORY = "HIGH_RISK_CATEGORY";
+    static final String REASON_SUSPICIOUS_NAME = "SUSPICIOUS_MERCHANT_NAME";
+    static final String REASON_EXCEEDS_THRESHOLD = "EXCEEDS_CATEGORY_THRESHOLD";
+    static final String REASON_HIGH_VELOCITY = "HIGH_MERCHANT_VELOCITY";
+    
+    // Window for same-merchant velocity checks
+    private static final int MERCHANT_VELOCITY_WINDOW_MINUTES = 60;
+    
+    // Risk multipliers by category, in basis points
+    private static final Map<MerchantCategory.RiskLevel, Integer> RISK_MULTIPLIERS = Map.of(
+        MerchantCategory.RiskLevel.LOW, 1_000,
+        MerchantCategory.RiskLevel.MEDIUM, 4_000,
+        MerchantCategory.RiskLevel.HIGH, 7_000,
+        MerchantCategory.RiskLevel.CRITICAL, 9_500
     );
+    
+    // Confidence adjustments, in basis points
+    private static final int SUSPICIOUS_NAME_BONUS = 2_000;
+    private static final int HIGH_RISK_AMOUNT_BONUS = 1_500;
+    private static final int CRITICAL_RISK_AMOUNT_BONUS = 2_500;
+    private static final int LATE_NIGHT_BONUS = 1_000;
+    private static final int VELOCITY_BONUS = 3_000;
+    
+    // Medium-risk categories use twice the high-risk threshold
+    private BigDecimal mediumRiskThreshold;
+
+    @PostConstruct
+    public void init() {
+        mediumRiskThreshold = highRiskThreshold.multiply(BigDecimal.valueOf(2));
+        nameMatcher = MerchantNameMatcher.builder()
+                .addAll(SUSPICIOUS_MERCHANT_PATTERNS, MerchantNameMatcher.PatternClass.SUSPICIOUS)
+                .addAll(HIGH_RISK_MERCHANTS, MerchantNameMatcher.PatternClass.HIGH_RISK)
+                .addAll(CRITICAL_RISK_MERCHANTS, MerchantNameMatcher.PatternClass.CRITICAL_RISK)
+                .addAll(extraSuspiciousPatterns, MerchantNameMatcher.PatternClass.SUSPICIOUS)
+                .build();
+        logger.info("Compiled {} merchant name patterns", nameMatcher.getPatternCount());
+    }
 
     @Override
-    public boolean isFraudulent(Transaction transaction) {
+    public RuleOutcome evaluate(Transaction transaction, EvaluationContext context) {
         try {
             logger.debug("Evaluating merchant risk for transaction: {}", transaction.getTransactionId());
             
-            MerchantCategory category = transaction.getMerchantCategory();
+            // Risk level comes from the category cache so it reflects the latest refresh
+            MerchantCategory category = merchantCategoryCache.resolve(transaction.getMerchantCategory());
             if (category == null) {
                 logger.warn("No merchant category found for transaction: {}", transaction.getTransactionId());
-                return false;
+                return RuleOutcome.pass();
             }
             
-            // Check category risk level
-            if (isCategoryHighRisk(category)) {
+            // Each check runs once; the verdict and the confidence factors share the results
+            boolean categoryHighRisk = isCategoryHighRisk(category);
+            boolean suspiciousName = hasSuspiciousMerchantName(transaction);
+            boolean exceedsThreshold = exceedsRiskThreshold(transaction, category);
+            boolean highVelocity = enableMerchantVelocityCheck && hasHighMerchantVelocity(transaction, context);
+            
+            List<String> reasons = new ArrayList<>(4);
+            if (categoryHighRisk) {
                 logger.info("Transaction {} flagged for high-risk category: {}", 
                            transaction.getTransactionId(), category.getCategoryName());
-                return true;
+                reasons.add(REASON_HIGH_RISK_CATEGORY);
             }
-            
-            // Check merchant name patterns
-            if (hasSuspiciousMerchantName(transaction)) {
+            if (suspiciousName) {
                 logger.info("Transaction {} flagged for suspicious merchant name: {}", 
                            transaction.getTransactionId(), transaction.getMerchantName());
-                return true;
+                reasons.add(REASON_SUSPICIOUS_NAME);
             }
-            
-            // Check amount thresholds for risky categories
-            if (exceedsRiskThreshold(transaction, category)) {
+            if (exceedsThreshold) {
                 logger.info("Transaction {} flagged for exceeding risk threshold: ${} in category: {}", 
                            transaction.getTransactionId(), transaction.getAmount(), category.getCategoryName());
-                return true;
+                reasons.add(REASON_EXCEEDS_THRESHOLD);
             }
-            
-            // Check merchant velocity (optional)
-            if (enableMerchantVelocityCheck && hasHighMerchantVelocity(transaction)) {
+            if (highVelocity) {
                 logger.info("Transaction {} flagged for high merchant velocity", transaction.getTransactionId());
-                return true;
+                reasons.add(REASON_HIGH_VELOCITY);
             }
             
-            return false;
+            if (reasons.isEmpty()) {
+                return RuleOutcome.pass();
+            }
+            
+            return RuleOutcome.flagged(calculateScore(transaction, category, suspiciousName, highVelocity), reasons);
             
         } catch (Exception e) {
             logger.error("Error evaluating merchant risk for transaction {}: {}", 
                         transaction.getTransactionId(), e.getMessage(), e);
-            return false; // Don't flag due to technical errors
+            return RuleOutcome.pass(); // Don't flag due to technical errors
         }
     }
 
+    @Override
+    public boolean isFraudulent(Transaction transaction) {
+        return evaluate(transaction, createContext(transaction)).isFraudulent();
+    }
+
     @Override
     public String getRuleName() {
         return "Enhanced Merchant Risk Rule";
     }
     
+    @Override
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+    
+    @Override
+    public int getHistoryWindowMinutes() {
+        return enableMerchantVelocityCheck ? MERCHANT_VELOCITY_WINDOW_MINUTES : 0;
+    }
+    
     @Override
     public BigDecimal calculateConfidence(Transaction transaction) {
-        try {
-            MerchantCategory category = transaction.getMerchantCategory();
-            if (category == null) {
-                return BigDecimal.ZERO;
-            }
-            
-            BigDecimal baseConfidence = RISK_MULTIPLIERS.getOrDefault(
-                category.getRiskLevel(), BigDecimal.ZERO);
-            
-            // Adjust confidence based on various factors
-            BigDecimal adjustedConfidence = baseConfidence;
-            
-            // Factor 1: Merchant name suspicion
-            if (hasSuspiciousMerchantName(transaction)) {
-                adjustedConfidence = adjustedConfidence.add(new BigDecimal("0.2"));
-            }
+        return evaluate(transaction, createContext(transaction)).getConfidence();
+    }
+    
+    /**
+     * Combine the category base risk with the factors already evaluated for this transaction
+     */
+    private int calculateScore(Transaction transaction, MerchantCategory category,
+                               boolean suspiciousName, boolean highVelocity) {
+        int baseScore = RISK_MULTIPLIERS.getOrDefault(category.getRiskLevel(), Score.ZERO);
             
-            // Factor 2: Amount relative to category risk
-            if (category.getRiskLevel() == MerchantCategory.RiskLevel.HIGH && 
-                transaction.getAmount().compareTo(highRiskThreshold) > 0) {
-                adjustedConfidence = adjustedConfidence.add(new BigDecimal("0.15"));
-            }
+        // Adjust confidence based on various factors
+        int adjustedScore = baseScore;
             
-            if (category.getRiskLevel() == MerchantCategory.RiskLevel.CRITICAL && 
-                transaction.getAmount().compareTo(criticalRiskThreshold) > 0) {
-                adjustedConfidence = adjustedConfidence.add(new BigDecimal("0.25"));
-            }
+        // Factor 1: Merchant name suspicion
+        if (suspiciousName) {
+            adjustedScore += SUSPICIOUS_NAME_BONUS;
+        }
             
-            // Factor 3: Time-based risk (late night high-risk transactions)
-            int hour = transaction.getTimestamp().getHour();
-            if ((hour >= 23 || hour <= 5) && category.getRiskLevel().ordinal() >= 2) {
-                adjustedConfidence = adjustedConfidence.add(new BigDecimal("0.1"));
-            }
+        // Factor 2: Amount relative to category risk
+        if (category.getRiskLevel() == MerchantCategory.RiskLevel.HIGH && 
+            transaction.getAmount().compareTo(highRiskThreshold) > 0) {
+            adjustedScore += HIGH_RISK_AMOUNT_BONUS;
+        }
             
-            // Factor 4: Merchant velocity
-            if (enableMerchantVelocityCheck && hasHighMerchantVelocity(transaction)) {
-                adjustedConfidence = adjustedConfidence.add(new BigDecimal("0.3"));
-            }
+        if (category.getRiskLevel() == MerchantCategory.RiskLevel.CRITICAL && 
+            transaction.getAmount().compareTo(criticalRiskThreshold) > 0) {
+            adjustedScore += CRITICAL_RISK_AMOUNT_BONUS;
+        }
             
-            // Cap at 1.0
-            return adjustedConfidence.min(new BigDecimal("1.0"));
+        // Factor 3: Time-based risk (late night high-risk transactions)
+        int hour = transaction.getTimestamp().getHour();
+        if ((hour >= 23 || hour <= 5) && category.getRiskLevel().ordinal() >= 2) {
+            adjustedScore += LATE_NIGHT_BONUS;
+        }
             
-        } catch (Exception e) {
-            logger.error("Error calculating confidence for transaction {}: {}", 
-                        transaction.getTransactionId(), e.getMessage());
-            return BigDecimal.ZERO;
+        // Factor 4: Merchant velocity
+        if (highVelocity) {
+            adjustedScore += VELOCITY_BONUS;
         }
+            
+        // Cap at 1.0
+        return Math.min(adjustedScore, Score.ONE);
     }
     
     /**
@@ -176,34 +235,19 @@ public class MerchantRiskRule implements FraudDetectionRule {
      */
     private boolean hasSuspiciousMerchantName(Transaction transaction) {
         String merchantName = transaction.getMerchantName();
-        if (merchantName == null || merchantName.trim().isEmpty()) {
+        if (merchantName == null || merchantName.isBlank()) {
             return true; // No merchant name is suspicious
         }
         
-        String upperMerchantName = merchantName.toUpperCase();
-        
-        // Check for suspicious patterns
-        for (String pattern : SUSPICIOUS_MERCHANT_PATTERNS) {
-            if (upperMerchantName.contains(pattern)) {
-                return true;
-            }
-        }
-        
-        // Check for high-risk merchant types
-        for (String riskType : HIGH_RISK_MERCHANTS) {
-            if (upperMerchantName.contains(riskType)) {
-                return true;
-            }
-        }
-        
-        // Check for critical risk merchant types
-        for (String criticalType : CRITICAL_RISK_MERCHANTS) {
-            if (upperMerchantName.contains(criticalType)) {
-                return true;
-            }
-        }
+        // Single pass over the name against every pattern list
+        return nameMatcher.matchesAny(merchantName);
+    }
         
-        return false;
+    /**
+     * Get the most severe pattern class found in the merchant name, or null when none matches
+     */
+    private MerchantNameMatcher.PatternClass matchMerchantName(Transaction transaction) {
+        return nameMatcher.match(transaction.getMerchantName());
     }
     
     /**
@@ -219,7 +263,7 @@ public class MerchantRiskRule implements FraudDetectionRule {
                 return amount.compareTo(criticalRiskThreshold) > 0;
             case MEDIUM:
                 // For medium risk, use a higher threshold
-                return amount.compareTo(highRiskThreshold.multiply(new BigDecimal("2"))) > 0;
+                return amount.compareTo(mediumRiskThreshold) > 0;
             default:
                 return false;
         }
@@ -228,21 +272,15 @@ public class MerchantRiskRule implements FraudDetectionRule {
     /**
      * Check for high transaction velocity at the same merchant
      */
-    private boolean hasHighMerchantVelocity(Transaction transaction) {
+    private boolean hasHighMerchantVelocity(Transaction transaction, EvaluationContext context) {
         try {
             if (transaction.getMerchantName() == null) {
                 return false;
             }
             
-            LocalDateTime oneHourAgo = transaction.getTimestamp().minusHours(1);
-            
-            // Find recent transactions from the same user at the same merchant
-            List<Transaction> recentTransactions = transactionRepository.findUserTransactionsAfter(
-                transaction.getUser(), oneHourAgo);
-            
-            long samemerchantCount = recentTransactions.stream()
-                .filter(t -> transaction.getMerchantName().equals(t.getMerchantName()))
-                .count();
+            // Count recent transactions from the same user at the same merchant
+            long samemerchantCount = context.countRecentTransactionsAtMerchant(
+                transaction.getMerchantName(), MERCHANT_VELOCITY_WINDOW_MINUTES);
             
             // Flag if more than 3 transactions at same merchant in 1 hour
             return samemerchantCount >= 3;
@@ -257,26 +295,33 @@ public class MerchantRiskRule implements FraudDetectionRule {
      * Get detailed risk analysis for reporting
      */
     public MerchantRiskAnalysis analyzeRisk(Transaction transaction) {
+        EvaluationContext context = createContext(transaction);
         MerchantRiskAnalysis analysis = new MerchantRiskAnalysis();
         analysis.setTransactionId(transaction.getTransactionId());
         analysis.setMerchantName(transaction.getMerchantName());
         
-        MerchantCategory category = transaction.getMerchantCategory();
+        MerchantCategory category = merchantCategoryCache.resolve(transaction.getMerchantCategory());
         if (category != null) {
             analysis.setCategoryName(category.getCategoryName());
             analysis.setCategoryRiskLevel(category.getRiskLevel().toString());
             analysis.setCategoryRisk(isCategoryHighRisk(category));
         }
         
+        RuleOutcome outcome = evaluate(transaction, context);
         analysis.setSuspiciousMerchantName(hasSuspiciousMerchantName(transaction));
+        analysis.setMatchedPatternClass(matchMerchantName(transaction));
         analysis.setExceedsThreshold(exceedsRiskThreshold(transaction, category));
-        analysis.setHighVelocity(enableMerchantVelocityCheck && hasHighMerchantVelocity(transaction));
-        analysis.setConfidenceScore(calculateConfidence(transaction));
-        analysis.setOverallRisk(isFraudulent(transaction));
+        analysis.setHighVelocity(enableMerchantVelocityCheck && hasHighMerchantVelocity(transaction, context));
+        analysis.setConfidenceScore(outcome.getConfidence());
+        analysis.setOverallRisk(outcome.isFraudulent());
         
         return analysis;
     }
     
+    private EvaluationContext createContext(Transaction transaction) {
+        return new EvaluationContext(transaction, transactionRepository, MERCHANT_VELOCITY_WINDOW_MINUTES);
+    }
+    
     /**
      * Risk analysis result class
      */
@@ -287,6 +332,7 @@ public class MerchantRiskRule implements FraudDetectionRule {
         private String categoryRiskLevel;
         private boolean categoryRisk;
         private boolean suspiciousMerchantName;
+        private MerchantNameMatcher.PatternClass matchedPatternClass;
         private boolean exceedsThreshold;
         private boolean highVelocity;
         private BigDecimal confidenceScore;
@@ -311,6 +357,9 @@ public class MerchantRiskRule implements FraudDetectionRule {
         public boolean isSuspiciousMerchantName() { return suspiciousMerchantName; }
         public void setSuspiciousMerchantName(boolean suspiciousMerchantName) { this.suspiciousMerchantName = suspiciousMerchantName; }
         
+        public MerchantNameMatcher.PatternClass getMatchedPatternClass() { return matchedPatternClass; }
+        public void setMatchedPatternClass(MerchantNameMatcher.PatternClass matchedPatternClass) { this.matchedPatternClass = matchedPatternClass; }
+        
         public boolean isExceedsThreshold() { return exceedsThreshold; }
         public void setExceedsThreshold(boolean exceedsThreshold) { this.exceedsThreshold = exceedsThreshold; }
         
@@ -0,0 +1,96 @@
+package com.mj.frauddetectionsystem.rules;
+
+import com.mj.frauddetectionsystem.dto.RuleStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention-free counters and a latency histogram for one rule.
+ *
+ * Counters are LongAdders, so concurrent request threads never lose updates or
+ * contend on a shared lock; Micrometer reads them through function counters.
+ */
+final class RuleMetrics {
+
+    private final String ruleName;
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final Timer latency;
+    private final RuleStatistics statistics = new RuleStatistics();
+
+    RuleMetrics(String ruleName, MeterRegistry registry) {
+        this.ruleName = ruleName;
+        FunctionCounter.builder("fraud.rule.evaluations", evaluations, LongAdder::sum)
+                .description("Rule evaluations").tag("rule", ruleName).register(registry);
+        FunctionCounter.builder("fraud.rule.hits", hits, LongAdder::sum)
+                .description("Rule evaluations that flagged the transaction").tag("rule", ruleName).register(registry);
+        FunctionCounter.builder("fraud.rule.errors", errors, LongAdder::sum)
+                .description("Rule evaluations that threw").tag("rule", ruleName).register(registry);
+        FunctionCounter.builder("fraud.rule.timeouts", timeouts, LongAdder::sum)
+                .description("Rule evaluations abandoned after their time budget").tag("rule", ruleName).register(registry);
+        this.latency = Timer.builder("fraud.rule.latency")
+                .description("Rule evaluation latency")
+                .tag("rule", ruleName)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    void recordEvaluation(long elapsedNanos, RuleOutcome outcome) {
+        evaluations.increment();
+        if (outcome.isFraudulent()) {
+            hits.increment();
+        }
+        latency.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        statistics.record(elapsedNanos, outcome);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    RuleStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Snapshot of counters and latency percentiles, in milliseconds
+     */
+    RuleStats snapshot() {
+        RuleStats stats = new RuleStats();
+        stats.setRuleName(ruleName);
+        stats.setEvaluations(evaluations.sum());
+        stats.setHits(hits.sum());
+        stats.setErrors(errors.sum());
+        stats.setTimeouts(timeouts.sum());
+        stats.setMeanMs(latency.mean(TimeUnit.MILLISECONDS));
+        stats.setMaxMs(latency.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+            double valueMs = percentile.value(TimeUnit.MILLISECONDS);
+            if (percentile.percentile() == 0.5) {
+                stats.setP50Ms(valueMs);
+            } else if (percentile.percentile() == 0.95) {
+                stats.setP95Ms(valueMs);
+            } else if (percentile.percentile() == 0.99) {
+                stats.setP99Ms(valueMs);
+            }
+        }
+        stats.setRecentHitRate(statistics.getHitRate());
+        return stats;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mj.frauddetectionsystem.rules;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Immutable result of a single rule evaluation: verdict, confidence and the
+ * reason codes explaining why the rule fired. The confidence is held as a
+ * fixed-point {@link Score} in basis points.
+ */
+public final class RuleOutcome {
+
+    private static final RuleOutcome PASS = new RuleOutcome(false, false, Score.ZERO, List.of());
+    private static final RuleOutcome APPROVED = new RuleOutcome(false, true, Score.ZERO, List.of());
+
+    private final boolean fraudulent;
+    private final boolean conclusive;
+    private final int score;
+    private final List<String> reasonCodes;
+
+    private RuleOutcome(boolean fraudulent, boolean conclusive, int score, List<String> reasonCodes) {
+        this.fraudulent = fraudulent;
+        this.conclusive = conclusive;
+        this.score = score;
+        this.reasonCodes = reasonCodes;
+    }
+
+    /**
+     * Outcome for a rule that did not fire
+     */
+    public static RuleOutcome pass() {
+        return PASS;
+    }
+
+    /**
+     * Outcome for a rule that is certain the transaction is legitimate; lets the
+     * engine skip the remaining rules under an approving short-circuit policy
+     */
+    public static RuleOutcome approved() {
+        return APPROVED;
+    }
+
+    /**
+     * Outcome for a rule that fired with the given score, in basis points, and reasons
+     */
+    public static RuleOutcome flagged(int score, List<String> reasonCodes) {
+        return new RuleOutcome(true, false, score, List.copyOf(reasonCodes));
+    }
+
+    /**
+     * Outcome for a rule that fired with the given confidence and reasons
+     */
+    public static RuleOutcome flagged(BigDecimal confidence, List<String> reasonCodes) {
+        return flagged(Score.fromBigDecimal(confidence), reasonCodes);
+    }
+
+    public boolean isFraudulent() { return fraudulent; }
+    public boolean isConclusive() { return conclusive; }
+    public int getScore() { return score; }
+    public List<String> getReasonCodes() { return reasonCodes; }
+
+    /**
+     * Get the confidence as a BigDecimal, for callers outside the engine
+     */
+    public BigDecimal getConfidence() {
+        return Score.toBigDecimal(score);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RuleOutcome{fraudulent=%s, conclusive=%s, score=%d, reasons=%s}",
+                fraudulent, conclusive, score, reasonCodes);
+    }
+}
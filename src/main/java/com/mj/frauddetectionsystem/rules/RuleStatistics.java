@@ -0,0 +1,43 @@
+package com.mj.frauddetectionsystem.rules;
+
+/**
+ * Exponentially weighted cost and selectivity of one rule, used to order evaluation.
+ * Recent evaluations dominate, so the ordering follows shifts in traffic and latency.
+ */
+final class RuleStatistics {
+
+    private static final double ALPHA = 0.05;
+    // Keeps rules that never decide anything from sorting as infinitely expensive
+    private static final double MIN_SELECTIVITY = 0.001;
+
+    private long samples;
+    private double costNanos;
+    private double hitRate;
+    private double conclusiveRate;
+
+    synchronized void record(long elapsedNanos, RuleOutcome outcome) {
+        double hit = outcome.isFraudulent() ? 1.0 : 0.0;
+        double conclusive = outcome.isConclusive() ? 1.0 : 0.0;
+        if (samples++ == 0) {
+            costNanos = elapsedNanos;
+            hitRate = hit;
+            conclusiveRate = conclusive;
+        } else {
+            costNanos += ALPHA * (elapsedNanos - costNanos);
+            hitRate += ALPHA * (hit - hitRate);
+            conclusiveRate += ALPHA * (conclusive - conclusiveRate);
+        }
+    }
+
+    /**
+     * Expected cost per decisive outcome; lower ranks run first
+     */
+    synchronized double getRank() {
+        return costNanos / Math.max(hitRate + conclusiveRate, MIN_SELECTIVITY);
+    }
+
+    synchronized long getSamples() { return samples; }
+    synchronized double getCostNanos() { return costNanos; }
+    synchronized double getHitRate() { return hitRate; }
+    synchronized double getConclusiveRate() { return conclusiveRate; }
+}
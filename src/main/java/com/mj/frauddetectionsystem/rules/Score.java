@@ -0,0 +1,66 @@
+package com.mj.frauddetectionsystem.rules;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point confidence scores used inside the rule engine.
+ *
+ * A score is an int in basis points, so 1.0 is {@link #ONE} (10,000) and 0.25 is 2,500.
+ * Rules and the engine do all score arithmetic on primitives; conversion to
+ * BigDecimal happens only at the edges, when results leave the engine.
+ */
+public final class Score {
+
+    public static final int ZERO = 0;
+    public static final int ONE = 10_000;
+
+    private static final int SCALE = 4;
+
+    private Score() {
+    }
+
+    /**
+     * Convert a fraction (e.g. 0.35) to basis points, rounding half up
+     */
+    public static int fromDouble(double value) {
+        return (int) Math.round(value * ONE);
+    }
+
+    /**
+     * Convert a BigDecimal confidence to basis points, rounding half up
+     */
+    public static int fromBigDecimal(BigDecimal value) {
+        if (value == null) {
+            return ZERO;
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().intValueExact();
+    }
+
+    /**
+     * Convert basis points to a BigDecimal confidence
+     */
+    public static BigDecimal toBigDecimal(int score) {
+        return score == ZERO ? BigDecimal.ZERO : BigDecimal.valueOf(score, SCALE);
+    }
+
+    /**
+     * Average of a score total over a count, as a BigDecimal with two decimals rounded half up
+     */
+    public static BigDecimal average(long total, int count) {
+        if (count <= 0) {
+            return BigDecimal.ZERO;
+        }
+        // Work in hundredths: one hundredth is 100 basis points
+        long divisor = 100L * count;
+        long magnitude = (Math.abs(total) + divisor / 2) / divisor;
+        return BigDecimal.valueOf(total < 0 ? -magnitude : magnitude, 2);
+    }
+
+    /**
+     * Ratio of two amounts in hundredths (1.50 is 150), rounded half up
+     */
+    public static long ratioHundredths(BigDecimal numerator, double denominator) {
+        return Math.round(numerator.doubleValue() / denominator * 100.0);
+    }
+}
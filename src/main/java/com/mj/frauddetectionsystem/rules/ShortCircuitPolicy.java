@@ -0,0 +1,23 @@
+package com.mj.frauddetectionsystem.rules;
+
+/**
+ * When sequential evaluation may stop before every rule has run
+ */
+public enum ShortCircuitPolicy {
+    /** Always run every rule */
+    NONE,
+    /** Stop once the average confidence of triggered rules reaches the decline threshold */
+    DECLINE,
+    /** Stop when a rule approves conclusively and nothing has triggered yet */
+    APPROVE,
+    /** Apply both DECLINE and APPROVE */
+    DECLINE_OR_APPROVE;
+
+    boolean stopsOnDecline() {
+        return this == DECLINE || this == DECLINE_OR_APPROVE;
+    }
+
+    boolean stopsOnApproval() {
+        return this == APPROVE || this == DECLINE_OR_APPROVE;
+    }
+}
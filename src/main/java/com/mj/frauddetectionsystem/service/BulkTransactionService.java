@@ -0,0 +1,607 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mj.frauddetectionsystem.dto.FraudDetectionResponse;
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import com.mj.frauddetectionsystem.exception.MerchantCategoryNotFoundException;
+import com.mj.frauddetectionsystem.exception.UserNotFoundException;
+import com.mj.frauddetectionsystem.model.AlertOutboxEvent;
+import com.mj.frauddetectionsystem.model.FraudAlert;
+import com.mj.frauddetectionsystem.model.MerchantCategory;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.repository.UserRepository;
+import com.mj.frauddetectionsystem.rules.FraudDetectionEngine;
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import com.mj.frauddetectionsystem.state.PendingTransactionIds;
+import com.mj.frauddetectionsystem.state.TransactionIdFilter;
+import com.mj.frauddetectionsystem.state.UserVelocityStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Bulk fraud analysis for large batches of transactions.
+ *
+ * Users, merchant categories and existing transaction IDs are prefetched with a few
+ * set-based queries, rules run in parallel across a fixed pool, and each chunk of
+ * transactions and alerts is written with JDBC batch inserts in a transaction of its
+ * own. Every request gets its own response; a failing item is reported as ERROR and
+ * does not affect the rest of the batch.
+ *
+ * Within a chunk, each user's items are scored in request order on one task, and the
+ * user's earlier items count towards the velocity checks of later ones, as they would
+ * had the items been submitted one at a time.
+ */
+@Service
+public class BulkTransactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkTransactionService.class);
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (id, transaction_id, user_id, amount, merchant_category_id, merchant_name, location, "
+            + "timestamp, payment_method, is_fraudulent, fraud_score, processing_status, description) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX_SQL =
+            "INSERT INTO alert_outbox (id, transaction_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_ALERT_SQL =
+            "INSERT INTO fraud_alerts (id, user_id, transaction_id, alert_time, alert_type, description, triggered_rules, "
+            + "severity, confidence_score, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Outcomes of readLine
+    private static final int LINE_READ = 0;
+    private static final int LINE_TOO_LONG = 1;
+    private static final int END_OF_STREAM = -1;
+
+    @Autowired
+    private FraudDetectionEngine fraudDetectionEngine;
+
+    @Autowired
+    private PostDecisionService postDecisionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MerchantCategoryCache merchantCategoryCache;
+
+    @Autowired
+    private UserVelocityStore velocityStore;
+
+    @Autowired
+    private TransactionIdFilter transactionIdFilter;
+
+    @Autowired
+    private PendingTransactionIds pendingTransactionIds;
+
+    @Autowired
+    private FraudAlertOutbox fraudAlertOutbox;
+
+    @Autowired
+    private FraudStatsRollup fraudStatsRollup;
+
+    @Autowired
+    private FraudSketchStore fraudSketchStore;
+
+    @Autowired
+    private FraudAlertPublisher fraudAlertPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 0 means one scoring thread per available processor
+    @Value("${fraud.detection.bulk.parallelism:0}")
+    private int parallelism;
+
+    @Value("${fraud.detection.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${fraud.detection.bulk.lookup-batch-size:1000}")
+    private int lookupBatchSize;
+
+    @Value("${fraud.detection.bulk.stream.window-size:500}")
+    private int streamWindowSize;
+
+    @Value("${fraud.detection.bulk.stream.max-line-length:65536}")
+    private int maxLineLength;
+
+    private ExecutorService scoringPool;
+    private TransactionTemplate writeTemplate;
+    private TransactionTemplate readTemplate;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        scoringPool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-scoring-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Chunks commit on their own, even when the caller is already in a transaction
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scoringPool.shutdownNow();
+    }
+
+    /**
+     * Analyze and store a batch of transactions
+     *
+     * @param requests Transaction requests to analyze
+     * @return One response per request, in request order
+     */
+    public List<FraudDetectionResponse> analyzeBulk(List<TransactionRequest> requests) {
+        long startTime = System.currentTimeMillis();
+        FraudDetectionResponse[] responses = new FraudDetectionResponse[requests.size()];
+
+        // Field validation and duplicates within the batch
+        List<BulkItem> items = new ArrayList<>(requests.size());
+        Set<String> batchIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            try {
+                FraudDetectionService.validateRequestFields(request);
+                if (!batchIds.add(request.getTransactionId())) {
+                    throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+                }
+                items.add(new BulkItem(i, request));
+            } catch (Exception e) {
+                responses[i] = FraudDetectionService.buildErrorResponse(request, e);
+            }
+        }
+
+        // Resolve references with set-based lookups and build the entities
+        Prefetch prefetch = prefetch(items);
+        List<BulkItem> resolved = new ArrayList<>(items.size());
+        try {
+            for (BulkItem item : items) {
+                try {
+                    item.transaction = createTransaction(item.request, prefetch);
+                    resolved.add(item);
+                } catch (Exception e) {
+                    responses[item.index] = FraudDetectionService.buildErrorResponse(item.request, e);
+                }
+            }
+
+            for (int from = 0; from < resolved.size(); from += chunkSize) {
+                List<BulkItem> chunk = resolved.subList(from, Math.min(from + chunkSize, resolved.size()));
+                score(chunk);
+                persist(chunk);
+                for (BulkItem item : chunk) {
+                    responses[item.index] = item.response;
+                }
+            }
+        } finally {
+            // Stored items are covered by the unique constraint from here on
+            for (BulkItem item : resolved) {
+                pendingTransactionIds.release(item.request.getTransactionId());
+            }
+        }
+
+        long fraudCount = 0;
+        long errorCount = 0;
+        for (FraudDetectionResponse response : responses) {
+            fraudCount += response.isFraudulent() ? 1 : 0;
+            errorCount += "ERROR".equals(response.getStatus()) ? 1 : 0;
+        }
+        logger.info("Bulk analysis of {} transactions completed in {}ms - {} fraudulent, {} failed",
+                   requests.size(), System.currentTimeMillis() - startTime, fraudCount, errorCount);
+
+        return List.of(responses);
+    }
+
+    /**
+     * Analyze a stream of newline-delimited JSON transaction requests, writing one
+     * JSON response line per request line in the same order.
+     *
+     * Requests are read and scored in windows of a fixed size, and each window's
+     * responses are flushed before the next window is read, so memory use does not
+     * grow with the stream and a slow client throttles the upload. Blank lines are
+     * skipped; malformed or over-long lines get an ERROR response of their own.
+     *
+     * @return Number of responses written
+     */
+    public long analyzeStream(InputStream input, OutputStream output) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ObjectReader requestReader = objectMapper.readerFor(TransactionRequest.class);
+        StringBuilder line = new StringBuilder();
+        List<TransactionRequest> window = new ArrayList<>(streamWindowSize);
+        Map<Integer, FraudDetectionResponse> lineErrors = new HashMap<>();
+        long lineNumber = 0;
+        long written = 0;
+        int windowLength = 0;
+
+        int status;
+        while ((status = readLine(reader, line)) != END_OF_STREAM) {
+            lineNumber++;
+            if (status == LINE_TOO_LONG) {
+                lineErrors.put(windowLength++, FraudDetectionService.buildErrorResponse(new TransactionRequest(),
+                        new IllegalArgumentException("Line " + lineNumber + " exceeds " + maxLineLength + " characters")));
+            } else if (!line.toString().isBlank()) {
+                try {
+                    window.add(requestReader.readValue(line.toString()));
+                    windowLength++;
+                } catch (IOException e) {
+                    lineErrors.put(windowLength++, FraudDetectionService.buildErrorResponse(new TransactionRequest(),
+                            new IllegalArgumentException("Line " + lineNumber + " is not a valid transaction request")));
+                }
+            }
+            if (windowLength >= streamWindowSize) {
+                written += writeWindow(window, lineErrors, windowLength, output);
+                window.clear();
+                lineErrors.clear();
+                windowLength = 0;
+            }
+        }
+        if (windowLength > 0) {
+            written += writeWindow(window, lineErrors, windowLength, output);
+        }
+        return written;
+    }
+
+    private int writeWindow(List<TransactionRequest> window, Map<Integer, FraudDetectionResponse> lineErrors,
+                            int windowLength, OutputStream output) throws IOException {
+        Iterator<FraudDetectionResponse> results = analyzeBulk(window).iterator();
+        for (int position = 0; position < windowLength; position++) {
+            FraudDetectionResponse response = lineErrors.containsKey(position) ? lineErrors.get(position) : results.next();
+            output.write(objectMapper.writeValueAsBytes(response));
+            output.write('\n');
+        }
+        output.flush();
+        return windowLength;
+    }
+
+    /**
+     * Read one line into the buffer without its terminator. Lines longer than the
+     * limit are consumed but not buffered.
+     */
+    private int readLine(Reader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() < maxLineLength) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+        }
+        if (c == -1 && line.length() == 0 && !tooLong) {
+            return END_OF_STREAM;
+        }
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return tooLong ? LINE_TOO_LONG : LINE_READ;
+    }
+
+    /**
+     * Load referenced users and already stored transaction IDs
+     */
+    private Prefetch prefetch(List<BulkItem> items) {
+        List<String> userIds = new ArrayList<>(items.stream().map(item -> item.request.getUserId()).distinct().toList());
+        List<String> transactionIds = items.stream().map(item -> item.request.getTransactionId()).toList();
+
+        return readTemplate.execute(status -> {
+            Prefetch prefetch = new Prefetch();
+            for (int from = 0; from < userIds.size(); from += lookupBatchSize) {
+                List<String> slice = userIds.subList(from, Math.min(from + lookupBatchSize, userIds.size()));
+                for (User user : userRepository.findWithProfileByUserIdIn(slice)) {
+                    prefetch.users.put(user.getUserId(), user);
+                }
+            }
+            for (int from = 0; from < transactionIds.size(); from += lookupBatchSize) {
+                List<String> slice = transactionIds.subList(from, Math.min(from + lookupBatchSize, transactionIds.size()));
+                for (Object[] row : transactionRepository.findKeysByTransactionIds(slice)) {
+                    prefetch.existingTransactionIds.add((String) row[0]);
+                }
+            }
+            return prefetch;
+        });
+    }
+
+    /**
+     * Build the entity and claim its transaction ID, so a copy waiting in the write-behind
+     * journal or in another batch is refused rather than stored twice
+     */
+    private Transaction createTransaction(TransactionRequest request, Prefetch prefetch) {
+        if (prefetch.existingTransactionIds.contains(request.getTransactionId())) {
+            throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+        }
+        User user = prefetch.users.get(request.getUserId());
+        if (user == null) {
+            throw new UserNotFoundException("User not found: " + request.getUserId());
+        }
+        MerchantCategory category = merchantCategoryCache.findByCode(request.getMerchantCategoryCode())
+                .orElseThrow(() -> new MerchantCategoryNotFoundException(
+                        "Merchant category not found: " + request.getMerchantCategoryCode()));
+        Transaction transaction = FraudDetectionService.createTransactionEntity(request, user, category);
+        if (!pendingTransactionIds.claim(request.getTransactionId())) {
+            throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+        }
+        return transaction;
+    }
+
+    /**
+     * Run the rules for every item of a chunk on the scoring pool, one task per user
+     */
+    private void score(List<BulkItem> chunk) {
+        Map<String, List<BulkItem>> itemsByUser = new LinkedHashMap<>();
+        for (BulkItem item : chunk) {
+            itemsByUser.computeIfAbsent(item.request.getUserId(), userId -> new ArrayList<>()).add(item);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(itemsByUser.size());
+        for (List<BulkItem> userItems : itemsByUser.values()) {
+            futures.add(CompletableFuture.runAsync(() -> scoreInOrder(userItems), scoringPool));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Score one user's items in order, each seeing the successfully scored ones before it
+     */
+    private void scoreInOrder(List<BulkItem> userItems) {
+        List<Transaction> preceding = new ArrayList<>(userItems.size());
+        for (BulkItem item : userItems) {
+            try {
+                item.result = fraudDetectionEngine.analyzeTransaction(item.transaction, List.copyOf(preceding));
+                FraudDetectionService.updateTransactionWithResults(item.transaction, item.result);
+                preceding.add(item.transaction);
+            } catch (Exception e) {
+                logger.error("Error analyzing transaction {} in bulk: {}",
+                           item.request.getTransactionId(), e.getMessage());
+                item.response = FraudDetectionService.buildErrorResponse(item.request, e);
+            }
+        }
+    }
+
+    /**
+     * Store the scored items of a chunk, then run their post-decision work. If the
+     * chunk violates a constraint, its items are retried one at a time so a single bad
+     * row only fails itself. Other database failures are not item errors and propagate.
+     */
+    private void persist(List<BulkItem> chunk) {
+        List<BulkItem> scored = chunk.stream().filter(item -> item.response == null).toList();
+        if (scored.isEmpty()) {
+            return;
+        }
+        List<BulkItem> stored = write(scored, (item, e) -> {
+            Exception cause = e instanceof DuplicateKeyException
+                    ? new IllegalArgumentException("Duplicate transaction ID: " + item.request.getTransactionId())
+                    : e;
+            item.response = FraudDetectionService.buildErrorResponse(item.request, cause);
+        });
+
+        for (BulkItem item : stored) {
+            item.response = FraudDetectionService.buildFraudDetectionResponse(item.transaction, item.result);
+            velocityStore.record(item.transaction);
+            transactionIdFilter.put(item.transaction.getTransactionId());
+        }
+        processCommitted(stored);
+    }
+
+    /**
+     * Store transactions that were scored elsewhere, such as entries of the write-behind
+     * journal, and run post-decision processing for them. Transactions whose ID is
+     * already stored are skipped.
+     *
+     * @param results Scored transactions, each carrying its unsaved transaction
+     * @return Results whose transaction was stored
+     */
+    public List<FraudDetectionResult> storeScored(List<FraudDetectionResult> results) {
+        List<BulkItem> items = new ArrayList<>(results.size());
+        for (FraudDetectionResult result : results) {
+            BulkItem item = new BulkItem(items.size(), null);
+            item.transaction = result.getTransaction();
+            item.result = result;
+            items.add(item);
+        }
+        List<BulkItem> stored = write(items, (item, e) ->
+                logger.warn("Skipping transaction {}: {}", item.transaction.getTransactionId(), e.getMessage()));
+        processCommitted(stored);
+        return stored.stream().map(item -> item.result).toList();
+    }
+
+    /**
+     * Insert the items in one transaction, falling back to one transaction per item
+     * when a constraint is violated
+     */
+    private List<BulkItem> write(List<BulkItem> items, BiConsumer<BulkItem, DataIntegrityViolationException> onRejected) {
+        try {
+            writeTemplate.executeWithoutResult(status -> insert(items));
+            return items;
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Bulk insert of {} transactions failed, retrying individually: {}", items.size(), e.getMessage());
+            List<BulkItem> stored = new ArrayList<>(items.size());
+            for (BulkItem item : items) {
+                try {
+                    writeTemplate.executeWithoutResult(status -> insert(List.of(item)));
+                    stored.add(item);
+                } catch (DataIntegrityViolationException itemError) {
+                    onRejected.accept(item, itemError);
+                }
+            }
+            return stored;
+        }
+    }
+
+    private void processCommitted(List<BulkItem> stored) {
+        Map<Long, FraudDetectionResult> resultsByKey = new LinkedHashMap<>();
+        for (BulkItem item : stored) {
+            resultsByKey.put(item.transaction.getId(), item.result);
+            fraudStatsRollup.record(item.transaction);
+            fraudSketchStore.record(item.transaction, item.transaction.getUser().getUserId());
+        }
+        if (!resultsByKey.isEmpty()) {
+            try {
+                postDecisionService.processBulkCommitted(resultsByKey);
+            } catch (Exception e) {
+                logger.error("Post-decision processing failed for a bulk chunk of {} transactions: {}",
+                            resultsByKey.size(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Batch insert transactions and the alerts and outbox messages of the fraudulent ones.
+     * Ids come from the same pooled generators Hibernate uses, so nothing has to be read
+     * back between the batches. Runs inside the caller's transaction.
+     */
+    private void insert(List<BulkItem> items) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        for (BulkItem item : items) {
+            item.transaction.setId(nextId(session, Transaction.class, item.transaction));
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, items, items.size(),
+                (ps, item) -> bindTransaction(ps, item.transaction));
+
+        List<BulkItem> fraudulent = items.stream().filter(item -> item.result.isFraudulent()).toList();
+        if (fraudulent.isEmpty()) {
+            return;
+        }
+        List<FraudAlert> alerts = new ArrayList<>(fraudulent.size());
+        for (BulkItem item : fraudulent) {
+            FraudAlert alert = PostDecisionService.buildFraudAlert(item.transaction, item.result);
+            alert.setId(nextId(session, FraudAlert.class, alert));
+            alerts.add(alert);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ALERT_SQL, alerts, alerts.size(), this::bindAlert);
+        if (fraudAlertPublisher.isEnabled()) {
+            List<AlertOutboxEvent> events = new ArrayList<>(fraudulent.size());
+            for (BulkItem item : fraudulent) {
+                AlertOutboxEvent event = fraudAlertOutbox.toEvent(PostDecisionService.buildAlertMessage(item.transaction, item.result));
+                event.setId(nextId(session, AlertOutboxEvent.class, event));
+                events.add(event);
+            }
+            jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, events, events.size(), (ps, event) -> {
+                ps.setLong(1, event.getId());
+                ps.setString(2, event.getTransactionId());
+                ps.setString(3, event.getPayload());
+                ps.setTimestamp(4, Timestamp.valueOf(event.getCreatedAt()));
+            });
+        }
+    }
+
+    private static Long nextId(SharedSessionContractImplementor session, Class<?> entityType, Object entity) {
+        Generator generator = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityType).getGenerator();
+        return (Long) ((IdentifierGenerator) generator).generate(session, entity);
+    }
+
+    private void bindTransaction(PreparedStatement ps, Transaction transaction) throws SQLException {
+        ps.setLong(1, transaction.getId());
+        ps.setString(2, transaction.getTransactionId());
+        ps.setLong(3, transaction.getUser().getId());
+        ps.setBigDecimal(4, transaction.getAmount());
+        ps.setObject(5, transaction.getMerchantCategory() != null ? transaction.getMerchantCategory().getId() : null, Types.BIGINT);
+        ps.setString(6, transaction.getMerchantName());
+        ps.setString(7, transaction.getLocation());
+        ps.setTimestamp(8, Timestamp.valueOf(transaction.getTimestamp()));
+        ps.setString(9, transaction.getPaymentMethod() != null ? transaction.getPaymentMethod().name() : null);
+        ps.setBoolean(10, transaction.isFraudulent());
+        ps.setBigDecimal(11, transaction.getFraudScore());
+        ps.setString(12, transaction.getProcessingStatus().name());
+        ps.setString(13, transaction.getDescription());
+    }
+
+    private void bindAlert(PreparedStatement ps, FraudAlert alert) throws SQLException {
+        ps.setLong(1, alert.getId());
+        ps.setLong(2, alert.getUser().getId());
+        ps.setLong(3, alert.getTransaction().getId());
+        ps.setTimestamp(4, Timestamp.valueOf(alert.getAlertTime()));
+        ps.setString(5, alert.getAlertType());
+        ps.setString(6, alert.getDescription());
+        ps.setString(7, alert.getTriggeredRules());
+        ps.setString(8, alert.getSeverity().name());
+        ps.setBigDecimal(9, alert.getConfidenceScore());
+        ps.setString(10, alert.getStatus().name());
+    }
+
+    /**
+     * State of one request as it moves through the bulk stages
+     */
+    private static final class BulkItem {
+        private final int index;
+        private final TransactionRequest request;
+        private Transaction transaction;
+        private volatile FraudDetectionResult result;
+        private volatile FraudDetectionResponse response;
+
+        private BulkItem(int index, TransactionRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
+
+    /**
+     * References resolved ahead of scoring
+     */
+    private static final class Prefetch {
+        private final Map<String, User> users = new HashMap<>();
+        private final Set<String> existingTransactionIds = new HashSet<>();
+    }
+}
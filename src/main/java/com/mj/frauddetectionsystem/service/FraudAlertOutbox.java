@@ -0,0 +1,197 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mj.frauddetectionsystem.dto.FraudAlertMessage;
+import com.mj.frauddetectionsystem.model.AlertOutboxEvent;
+import com.mj.frauddetectionsystem.repository.AlertOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for fraud alert messages.
+ *
+ * Alerts are written to the outbox in the same database transaction as the alert row,
+ * so the analyze path never waits on Kafka and the two cannot diverge. A relay drains
+ * the outbox oldest first in batches: it claims a batch in a short transaction, sends
+ * it with no transaction or row lock held, waits for the broker to acknowledge, and
+ * deletes the rows that were sent; rows that failed are released for the next poll.
+ * Delivery is at least once: rows of a relay that dies become claimable again once
+ * their claim expires, and are resent.
+ */
+@Component
+public class FraudAlertOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudAlertOutbox.class);
+
+    @Autowired
+    private AlertOutboxRepository alertOutboxRepository;
+
+    @Autowired
+    private FraudAlertPublisher fraudAlertPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.alerts.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${fraud.detection.alerts.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${fraud.detection.alerts.outbox.claim-ttl-ms:30000}")
+    private long claimTtlMs;
+
+    private TransactionTemplate claimTemplate;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Counter relayed;
+
+    @PostConstruct
+    public void init() {
+        claimTemplate = new TransactionTemplate(transactionManager);
+        claimTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        relayed = Counter.builder("fraud.alerts.outbox.relayed")
+                .description("Outbox rows sent to Kafka and deleted")
+                .register(meterRegistry);
+        Gauge.builder("fraud.alerts.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Age in seconds of the oldest unsent alert at the last relay poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Add an alert to the outbox in the current transaction
+     */
+    public void enqueue(FraudAlertMessage message) {
+        alertOutboxRepository.save(toEvent(message));
+    }
+
+    /**
+     * Build the outbox row for an alert, for callers that insert it themselves
+     */
+    public AlertOutboxEvent toEvent(FraudAlertMessage message) {
+        try {
+            return new AlertOutboxEvent(message.getTransactionId(), objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize fraud alert for transaction " + message.getTransactionId(), e);
+        }
+    }
+
+    /**
+     * Relay pending alerts until the outbox holds less than a full batch
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.alerts.outbox.poll-interval-ms:200}")
+    public void relay() {
+        if (!fraudAlertPublisher.isEnabled()) {
+            return;
+        }
+        try {
+            Integer sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+        } catch (Exception e) {
+            logger.warn("Fraud alert relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claim one batch, send it, delete what the broker acknowledged and release the rest
+     *
+     * @return Number of rows claimed
+     */
+    private int relayBatch() {
+        List<AlertOutboxEvent> batch = claimTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Math.max(Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toMillis(), 0));
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (AlertOutboxEvent event : batch) {
+            CompletableFuture<?> send;
+            try {
+                send = fraudAlertPublisher.send(objectMapper.readValue(event.getPayload(), FraudAlertMessage.class));
+            } catch (JsonProcessingException e) {
+                logger.error("Discarding unreadable outbox row {} for transaction {}", event.getId(), event.getTransactionId());
+                send = CompletableFuture.completedFuture(null);
+            }
+            sends.add(send);
+            // A send that failed at once (broker unreachable) would fail for the rest too
+            if (send.isCompletedExceptionally()) {
+                break;
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> done = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Long id = batch.get(i).getId();
+            if (i >= sends.size()) {
+                failed.add(id);
+                continue;
+            }
+            try {
+                sends.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                done.add(id);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(id);
+            } catch (Exception e) {
+                logger.debug("Outbox row {} not acknowledged: {}", id, e.getMessage());
+                failed.add(id);
+            }
+        }
+        if (!done.isEmpty()) {
+            claimTemplate.executeWithoutResult(status -> alertOutboxRepository.deleteAllByIdInBatch(done));
+            relayed.increment(done.size());
+        }
+        if (!failed.isEmpty()) {
+            claimTemplate.executeWithoutResult(status -> alertOutboxRepository.updateClaims(failed, null));
+            logger.warn("Relayed {} of {} fraud alerts; the rest will be retried", done.size(), batch.size());
+            return 0;
+        }
+        return batch.size();
+    }
+
+    /**
+     * Lock the oldest unclaimed rows just long enough to mark them claimed
+     */
+    private List<AlertOutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<AlertOutboxEvent> batch = alertOutboxRepository.lockOldestUnclaimed(now, PageRequest.of(0, batchSize));
+        if (!batch.isEmpty()) {
+            alertOutboxRepository.updateClaims(batch.stream().map(AlertOutboxEvent::getId).toList(),
+                                               now.plus(Duration.ofMillis(claimTtlMs)));
+        }
+        return batch;
+    }
+}
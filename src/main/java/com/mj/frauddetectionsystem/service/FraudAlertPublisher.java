@@ -0,0 +1,123 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.dto.FraudAlertMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka producer for fraud alert messages, tuned for throughput: a linger window and
+ * compression let the client pack many alerts into each request, and records are
+ * unkeyed so the sticky partitioner fills one batch at a time. Sends are asynchronous,
+ * with the outcome recorded in metrics from the completion callback.
+ */
+@Component
+public class FraudAlertPublisher {
+
+    @Autowired
+    private KafkaProperties kafkaProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.alerts.kafka.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.alerts.kafka.topic:fraud-alerts}")
+    private String topic;
+
+    // Upper bound in bytes of one producer batch per partition
+    @Value("${fraud.detection.alerts.kafka.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${fraud.detection.alerts.kafka.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${fraud.detection.alerts.kafka.compression:lz4}")
+    private String compression;
+
+    // How long a send may block on metadata or a full buffer before it fails
+    @Value("${fraud.detection.alerts.kafka.max-block-ms:1000}")
+    private long maxBlockMs;
+
+    private DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private Counter published;
+    private Counter failed;
+    private Timer sendLatency;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> properties = kafkaProperties.buildProducerProperties();
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        properties.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        producerFactory = new DefaultKafkaProducerFactory<>(properties);
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        published = alertCounter("published", "Alerts acknowledged by the broker");
+        failed = alertCounter("failed", "Alert sends that failed and will be retried");
+        sendLatency = Timer.builder("fraud.alerts.kafka.send.latency")
+                .description("Time from handing an alert to the producer until the broker acknowledged it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (producerFactory != null) {
+            kafkaTemplate.flush();
+            producerFactory.destroy();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Send an alert; the returned future completes when the broker acknowledges it
+     */
+    public CompletableFuture<?> send(FraudAlertMessage message) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<?> result;
+        try {
+            result = kafkaTemplate.send(topic, message);
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((sendResult, e) -> {
+            if (e == null) {
+                published.increment();
+                sendLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            } else {
+                failed.increment();
+            }
+        });
+    }
+
+    private Counter alertCounter(String result, String description) {
+        return Counter.builder("fraud.alerts.kafka")
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -12,6 +12,12 @@ import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
 import com.mj.frauddetectionsystem.exception.FraudDetectionException;
 import com.mj.frauddetectionsystem.exception.UserNotFoundException;
 import com.mj.frauddetectionsystem.exception.MerchantCategoryNotFoundException;
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import com.mj.frauddetectionsystem.state.PendingTransactionIds;
+import com.mj.frauddetectionsystem.state.TimeBucketedCounters;
+import com.mj.frauddetectionsystem.state.TransactionIdFilter;
+import com.mj.frauddetectionsystem.state.UserSnapshotCache;
+import com.mj.frauddetectionsystem.state.UserVelocityStore;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,14 +25,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import jakarta.validation.Valid;
@@ -37,6 +45,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -57,7 +66,13 @@ public class FraudDetectionService {
     private UserRepository userRepository;
     
     @Autowired
-    private MerchantCategoryRepository merchantCategoryRepository;
+    private UserSnapshotCache userSnapshotCache;
+    
+    @Autowired
+    private BulkTransactionService bulkTransactionService;
+    
+    @Autowired
+    private MerchantCategoryCache merchantCategoryCache;
     
     @Autowired
     private FraudAlertRepository fraudAlertRepository;
@@ -66,19 +81,32 @@ public class FraudDetectionService {
     @Autowired
     private FraudDetectionEngine fraudDetectionEngine;
     
+    @Autowired
+    private UserVelocityStore velocityStore;
+    
+    @Autowired
+    private TransactionIdFilter transactionIdFilter;
+    
+    @Autowired
+    private PendingTransactionIds pendingTransactionIds;
+    
+    @Autowired
+    private PostDecisionService postDecisionService;
   
-    @Autowired(required = false)
-    private KafkaTemplate<String, Object> kafkaTemplate;
-
+    @Autowired
+    private PostDecisionPipeline postDecisionPipeline;
     
-    @Value("${fraud.detection.alerts.kafka.enabled:false}")
-    private boolean kafkaAlertsEnabled;
-
-    @Value("${fraud.detection.alerts.kafka.topic:fraud-alerts}")
-    private String fraudAlertsTopic;
+    @Autowired
+    private TransactionWriteBehind writeBehind;
     
-    @Value("${fraud.detection.alerts.email.enabled:false}")
-    private boolean emailAlertsEnabled;
+    @Autowired
+    private FraudStatsRollup fraudStatsRollup;
+    
+    @Autowired
+    private FraudStatsQueryPlanner fraudStatsQueryPlanner;
+    
+    @Autowired
+    private FraudSketchStore fraudSketchStore;
     
     @Value("${fraud.detection.ml.enabled:true}")
     private boolean mlEnabled;
@@ -100,12 +128,22 @@ public class FraudDetectionService {
         
         logger.info("Processing transaction: {} for user: {}", request.getTransactionId(), request.getUserId());
         
+        boolean claimed = false;
+        boolean journaled = false;
         try {
             // Validate request
             validateTransactionRequest(request);
+            claimed = writeBehind.isEnabled();
             
-            // Find user
-            User user = findUserByUserId(request.getUserId());
+            // Find user: a cached snapshot serves the rules without loading the user
+            UserSnapshotCache.UserSnapshot userSnapshot = userSnapshotCache.get(request.getUserId());
+            User user;
+            if (userSnapshot != null) {
+                user = userRepository.getReferenceById(userSnapshot.getId());
+            } else {
+                user = findUserByUserId(request.getUserId());
+                userSnapshot = userSnapshotCache.put(user);
+            }
             
             // Find merchant category
             MerchantCategory category = findMerchantCategoryByCode(request.getMerchantCategoryCode());
@@ -114,24 +152,42 @@ public class FraudDetectionService {
             Transaction transaction = createTransactionEntity(request, user, category);
             
             // Analyze for fraud using the detection engine
-            FraudDetectionResult analysisResult = fraudDetectionEngine.analyzeTransaction(transaction);
+            FraudDetectionResult analysisResult = fraudDetectionEngine.analyzeTransaction(transaction, userSnapshot);
             
             // Update transaction with analysis results
             updateTransactionWithResults(transaction, analysisResult);
             
-            // Save transaction to database
-            Transaction savedTransaction = transactionRepository.save(transaction);
+            // Write-behind: durable in the local journal now, stored and alerted on by the journal writer
+            if (writeBehind.isEnabled()) {
+                journaled = true;
+                writeBehind.journal(transaction, request.getUserId(), analysisResult);
+                velocityStore.record(request.getUserId(), transaction.getTimestamp());
+                transactionIdFilter.put(transaction.getTransactionId());
+                
+                FraudDetectionResponse response = buildFraudDetectionResponse(transaction, analysisResult);
+                response.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+                return response;
+            }
             
-            // Handle fraud detection actions
-            if (analysisResult.isFraudulent()) {
-                handleFraudDetected(savedTransaction, analysisResult);
+            // Save transaction to database
+            Transaction savedTransaction = saveNewTransaction(transaction);
+            
+            // Count the transaction towards the user's velocity and remember its ID once it is committed
+            runAfterCommit(() -> {
+                velocityStore.record(request.getUserId(), savedTransaction.getTimestamp());
+                transactionIdFilter.put(savedTransaction.getTransactionId());
+                fraudStatsRollup.record(savedTransaction);
+                fraudSketchStore.record(savedTransaction, request.getUserId());
+            });
+            
+            // Alerting and profile maintenance: inline, or after commit on the user's pipeline lane
+            if (postDecisionPipeline.isEnabled()) {
+                Long transactionKey = savedTransaction.getId();
+                runAfterCommit(() -> postDecisionPipeline.submit(user.getId(), transactionKey, analysisResult));
             } else {
-                handleLegitimateTransaction(savedTransaction);
+                postDecisionService.process(savedTransaction, analysisResult);
             }
             
-            // Update user profile based on transaction
-            updateUserProfile(user, savedTransaction);
-            
             // Calculate processing time
             long processingTime = System.currentTimeMillis() - startTime;
             
@@ -151,6 +207,11 @@ public class FraudDetectionService {
         } catch (Exception e) {
             logger.error("Unexpected error processing transaction {}: {}", request.getTransactionId(), e.getMessage(), e);
             throw new FraudDetectionException("Failed to process transaction: " + e.getMessage(), e);
+        } finally {
+            // Once handed to the journal, the writer releases the ID after storing it
+            if (claimed && !journaled) {
+                pendingTransactionIds.release(request.getTransactionId());
+            }
         }
     }
 
@@ -166,39 +227,7 @@ public class FraudDetectionService {
         
         logger.info("Processing batch of {} transactions", requests.size());
         
-        List<FraudDetectionResponse> responses = new ArrayList<>();
-        int processedCount = 0;
-        int fraudCount = 0;
-        
-        for (TransactionRequest request : requests) {
-            try {
-                FraudDetectionResponse response = processTransaction(request);
-                responses.add(response);
-                processedCount++;
-                
-                if (response.isFraudulent()) {
-                    fraudCount++;
-                }
-                
-            } catch (Exception e) {
-                logger.error("Error processing transaction {} in batch: {}", 
-                           request.getTransactionId(), e.getMessage());
-                
-                // Create error response
-                FraudDetectionResponse errorResponse = new FraudDetectionResponse();
-                errorResponse.setTransactionId(request.getTransactionId());
-                errorResponse.setStatus("ERROR");
-                errorResponse.setFraudulent(false);
-                errorResponse.setConfidenceScore(BigDecimal.ZERO);
-                errorResponse.setTriggeredRules(Arrays.asList("Processing Error: " + e.getMessage()));
-                
-                responses.add(errorResponse);
-            }
-        }
-        
-        logger.info("Batch processing completed: {} processed, {} fraudulent", processedCount, fraudCount);
-        
-        return CompletableFuture.completedFuture(responses);
+        return CompletableFuture.completedFuture(bulkTransactionService.analyzeBulk(requests));
     }
 
   
@@ -328,22 +357,22 @@ public class FraudDetectionService {
         logger.debug("Calculating fraud detection statistics");
         
         try {
-            // Overall statistics
-            long totalTransactions = transactionRepository.count();
-            List<Transaction> fraudulentTransactions = transactionRepository.findByIsFraudulentTrueOrderByTimestampDesc();
-            long fraudulentCount = fraudulentTransactions.size();
+            // Overall statistics, from the time-bucketed counters rather than the transactions table
+            TimeBucketedCounters.Totals overall = fraudStatsRollup.total();
+            long totalTransactions = overall.getCount();
+            long fraudulentCount = overall.getFraudCount();
             
             // Today's statistics
-            LocalDateTime todayStart = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime todayEnd = todayStart.plusDays(1);
-            
-            long todayTotal = transactionRepository.countTransactionsInTimeRange(todayStart, todayEnd);
-            long todayFraud = transactionRepository.countFraudulentTransactionsInTimeRange(todayStart, todayEnd);
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime todayStart = now.truncatedTo(ChronoUnit.DAYS);
+            TimeBucketedCounters.Totals today = fraudStatsRollup.sum(todayStart, todayStart.plusDays(1));
+            long todayTotal = today.getCount();
+            long todayFraud = today.getFraudCount();
             
             // This week's statistics
-            LocalDateTime weekStart = LocalDateTime.now().minusDays(7);
-            long weekTotal = transactionRepository.countTransactionsInTimeRange(weekStart, LocalDateTime.now());
-            long weekFraud = transactionRepository.countFraudulentTransactionsInTimeRange(weekStart, LocalDateTime.now());
+            TimeBucketedCounters.Totals week = fraudStatsRollup.sum(now.minusDays(7), now);
+            long weekTotal = week.getCount();
+            long weekFraud = week.getFraudCount();
             
             // Create comprehensive statistics
             FraudStatistics stats = new FraudStatistics(totalTransactions, fraudulentCount, todayTotal, todayFraud);
@@ -367,9 +396,7 @@ public class FraudDetectionService {
             
             // Add average processing metrics
             if (totalTransactions > 0) {
-                BigDecimal avgAmount = fraudulentTransactions.stream()
-                        .map(Transaction::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add)
+                BigDecimal avgAmount = overall.getFraudAmount()
                         .divide(new BigDecimal(fraudulentCount > 0 ? fraudulentCount : 1), 2, RoundingMode.HALF_UP);
                 
                 //stats.setAverageFraudAmount(avgAmount);
@@ -395,60 +422,113 @@ public class FraudDetectionService {
      */
     @Transactional(readOnly = true)
     public FraudStatistics getFraudStatisticsForPeriod(@NotNull LocalDateTime startDate, @NotNull LocalDateTime endDate) {
-        long totalTransactions = transactionRepository.countTransactionsInTimeRange(startDate, endDate);
-        long fraudulentTransactions = transactionRepository.countFraudulentTransactionsInTimeRange(startDate, endDate);
-        
-        return new FraudStatistics(totalTransactions, fraudulentTransactions, totalTransactions, fraudulentTransactions);
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Period start must be before its end");
+        }
+        FraudStatsQueryPlanner.PeriodTotals period = fraudStatsQueryPlanner.query(startDate, endDate);
+        long totalTransactions = period.getCount();
+        long fraudulentTransactions = period.getFraudCount();
+        
+        FraudStatistics stats = new FraudStatistics(totalTransactions, fraudulentTransactions, totalTransactions, fraudulentTransactions);
+        stats.setFraudulentAmount(period.getFraudAmount());
+        stats.setFraudulentByCategory(period.getFraudByCategory());
+        stats.setFraudulentBySeverity(period.getFraudBySeverity());
+        return stats;
+    }
+
+    /**
+     * Approximate distinct users, distinct merchants and amount quantiles of fraudulent
+     * transactions for a period, from mergeable sketches
+     * @param startDate Start of period
+     * @param endDate End of period
+     * @param quantiles Amount quantiles to estimate, each between 0 and 1
+     * @return Estimates with their error bounds
+     */
+    public ApproximateFraudStatistics getApproximateFraudStatistics(@NotNull LocalDateTime startDate,
+                                                                    @NotNull LocalDateTime endDate,
+                                                                    List<Double> quantiles) {
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Period start must be before its end");
+        }
+        for (double q : quantiles) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+            }
+        }
+        return fraudSketchStore.query(startDate, endDate, quantiles);
     }
 
     
     /**
-     * Update user profile based on transaction patterns
-     * 
-     * @param user User entity
-     * @param transaction Latest transaction
+     * Insert a new transaction. The unique constraint on transaction_id is the final
+     * duplicate check, covering IDs the duplicate filter no longer remembers and
+     * concurrent requests with the same ID. Table-generated ids defer the INSERT,
+     * so it is flushed here to hit the constraint now rather than at commit.
      */
-    @CacheEvict(value = "user-transactions", key = "#user.userId")
-    private void updateUserProfile(@NotNull User user, @NotNull Transaction transaction) {
+    private Transaction saveNewTransaction(Transaction transaction) {
         try {
-            UserProfile profile = user.getProfile();
-            if (profile == null) {
-                profile = new UserProfile();
-                profile.setUser(user);
-                user.setProfile(profile);
-            }
-            
-            
-            BigDecimal currentAverage = transactionRepository.getAverageTransactionAmount(user);
-            if (currentAverage != null) {
-                profile.setAverageMonthlySpending(currentAverage.multiply(new BigDecimal("30"))); // Rough monthly estimate
+            return transactionRepository.saveAndFlush(transaction);
+        } catch (DataIntegrityViolationException e) {
+            String cause = e.getMostSpecificCause().getMessage();
+            if (cause != null && cause.contains("Duplicate entry")) {
+                throw new IllegalArgumentException("Duplicate transaction ID: " + transaction.getTransactionId(), e);
             }
-            
-           
-            List<Transaction> recentTransactions = getRecentUserTransactions(user.getUserId(), 24 * 30); // Last 30 days
-            long recentFraudCount = recentTransactions.stream().mapToLong(t -> t.isFraudulent() ? 1 : 0).sum();
-            
-            if (recentTransactions.size() > 0) {
-                BigDecimal riskScore = new BigDecimal(recentFraudCount)
-                        .divide(new BigDecimal(recentTransactions.size()), 4, RoundingMode.HALF_UP);
-                profile.setRiskScore(riskScore);
-            }
-            
-           
-            updateUserPreferences(profile, recentTransactions);
-            
-            logger.debug("Updated user profile for user: {}", user.getUserId());
-            
-        } catch (Exception e) {
-            logger.warn("Error updating user profile for user {}: {}", user.getUserId(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Run an action once the surrounding transaction commits, or immediately when there is none
+     */
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 
-   
     /**
      * Validate transaction request
      */
     private void validateTransactionRequest(@NotNull TransactionRequest request) {
+        validateRequestFields(request);
+        
+        // Write-behind stores the transaction after responding, so no unique constraint backs
+        // the decision: claim the ID and look it up even when the filter rules it out
+        if (writeBehind.isEnabled()) {
+            if (!pendingTransactionIds.claim(request.getTransactionId())) {
+                throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+            }
+            try {
+                if (transactionRepository.findByTransactionId(request.getTransactionId()).isPresent()) {
+                    throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+                }
+            } catch (RuntimeException e) {
+                pendingTransactionIds.release(request.getTransactionId());
+                throw e;
+            }
+            return;
+        }
+        
+        // Check for duplicate transaction ID; only IDs the filter cannot rule out need the lookup
+        if (transactionIdFilter.mightContain(request.getTransactionId())) {
+            if (transactionRepository.findByTransactionId(request.getTransactionId()).isPresent()) {
+                throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
+            }
+            transactionIdFilter.recordFalsePositive();
+        }
+    }
+
+    /**
+     * Validate the fields of a transaction request that need no lookup
+     */
+    static void validateRequestFields(@NotNull TransactionRequest request) {
         if (!StringUtils.hasText(request.getTransactionId())) {
             throw new IllegalArgumentException("Transaction ID is required");
         }
@@ -464,11 +544,6 @@ public class FraudDetectionService {
         if (!StringUtils.hasText(request.getMerchantCategoryCode())) {
             throw new IllegalArgumentException("Merchant category code is required");
         }
-        
-        // Check for duplicate transaction ID
-        if (transactionRepository.findByTransactionId(request.getTransactionId()).isPresent()) {
-            throw new IllegalArgumentException("Duplicate transaction ID: " + request.getTransactionId());
-        }
     }
 
     /**
@@ -483,16 +558,29 @@ public class FraudDetectionService {
      * Find merchant category by code
      */
     private MerchantCategory findMerchantCategoryByCode(@NotBlank String categoryCode) {
-        return merchantCategoryRepository.findByCategoryCode(categoryCode)
+        return merchantCategoryCache.findByCode(categoryCode)
                 .orElseThrow(() -> new MerchantCategoryNotFoundException("Merchant category not found: " + categoryCode));
     }
 
+    /**
+     * Build the response for a transaction that could not be processed
+     */
+    static FraudDetectionResponse buildErrorResponse(@NotNull TransactionRequest request, @NotNull Exception e) {
+        FraudDetectionResponse errorResponse = new FraudDetectionResponse();
+        errorResponse.setTransactionId(request.getTransactionId());
+        errorResponse.setStatus("ERROR");
+        errorResponse.setFraudulent(false);
+        errorResponse.setConfidenceScore(BigDecimal.ZERO);
+        errorResponse.setTriggeredRules(Arrays.asList("Processing Error: " + e.getMessage()));
+        return errorResponse;
+    }
+
     /**
      * Create transaction entity from request
      */
-    private Transaction createTransactionEntity(@NotNull TransactionRequest request, 
-                                               @NotNull User user, 
-                                               @NotNull MerchantCategory category) {
+    static Transaction createTransactionEntity(@NotNull TransactionRequest request, 
+                                              @NotNull User user, 
+                                              @NotNull MerchantCategory category) {
         Transaction transaction = new Transaction();
         transaction.setTransactionId(request.getTransactionId());
         transaction.setUser(user);
@@ -518,7 +606,7 @@ public class FraudDetectionService {
     /**
      * Update transaction with fraud analysis results
      */
-    private void updateTransactionWithResults(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+    static void updateTransactionWithResults(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
         transaction.setFraudulent(result.isFraudulent());
         transaction.setFraudScore(result.getConfidenceScore());
         
@@ -529,195 +617,25 @@ public class FraudDetectionService {
         }
     }
 
-    /**
-     * Handle actions when fraud is detected
-     */
-    private void handleFraudDetected(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
-        logger.warn("FRAUD DETECTED - Transaction: {}, User: {}, Amount: ${}, Confidence: {}", 
-                   transaction.getTransactionId(), transaction.getUser().getUserId(), 
-                   transaction.getAmount(), result.getConfidenceScore());
-        
-        // Create fraud alert
-        createFraudAlert(transaction, result);
-        
-        // Publish to Kafka if enabled
-        if (kafkaAlertsEnabled) {
-            publishFraudAlert(transaction, result);
-        }
-        
-        // Send email alert if enabled
-        if (emailAlertsEnabled) {
-            sendEmailAlert(transaction, result);
-        }
-        
-        // Update user risk score
-        incrementUserRiskScore(transaction.getUser());
-    }
-
-    /**
-     * Handle legitimate transactions
-     */
-    private void handleLegitimateTransaction(@NotNull Transaction transaction) {
-        logger.debug("Transaction {} approved for user: {}", 
-                    transaction.getTransactionId(), transaction.getUser().getUserId());
-        
-        // Optionally decrease user risk score for good behavior
-        decrementUserRiskScore(transaction.getUser());
-    }
-
-    /**
-     * Create fraud alert
-     */
-    private void createFraudAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
-        try {
-            FraudAlert alert = new FraudAlert();
-            alert.setUser(transaction.getUser());
-            alert.setTransaction(transaction);
-            alert.setAlertType("FRAUD_DETECTION");
-            alert.setDescription(String.format("Transaction %s flagged by fraud detection system. Rules: %s", 
-                               transaction.getTransactionId(), String.join(", ", result.getTriggeredRules())));
-            alert.setSeverity(determineSeverity(result.getConfidenceScore()));
-            alert.setTriggeredRules(String.join(", ", result.getTriggeredRules()));
-            alert.setConfidenceScore(result.getConfidenceScore());
-            alert.setAlertTime(LocalDateTime.now());
-            alert.setStatus(FraudAlert.AlertStatus.OPEN);
-            
-            fraudAlertRepository.save(alert);
-            
-            logger.info("Fraud alert created for transaction: {} with confidence: {}", 
-                       transaction.getTransactionId(), result.getConfidenceScore());
-            
-        } catch (Exception e) {
-            logger.error("Error creating fraud alert for transaction {}: {}", 
-                        transaction.getTransactionId(), e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Publish fraud alert to Kafka
-     */
-    private void publishFraudAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
-        try {
-            if (kafkaTemplate != null) {
-                FraudAlertMessage message = new FraudAlertMessage(
-                    transaction.getTransactionId(),
-                    transaction.getUser().getUserId(),
-                    transaction.getAmount(),
-                    result.getConfidenceScore(),
-                    result.getTriggeredRules()
-                );
-                
-                kafkaTemplate.send(fraudAlertsTopic, message);
-                logger.info("Fraud alert published to Kafka for transaction: {}", transaction.getTransactionId());
-            }
-        } catch (Exception e) {
-            logger.error("Failed to publish fraud alert to Kafka: {}", e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Send email alert (placeholder implementation)
-     */
-    private void sendEmailAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
-        // TODO: Implement email sending logic
-        logger.info("Email alert would be sent for transaction: {}", transaction.getTransactionId());
-    }
-
-    /**
-     * Determine alert severity based on confidence score
-     */
-    private FraudAlert.Severity determineSeverity(@NotNull BigDecimal confidenceScore) {
-        if (confidenceScore.compareTo(new BigDecimal("0.8")) >= 0) {
-            return FraudAlert.Severity.CRITICAL;
-        } else if (confidenceScore.compareTo(new BigDecimal("0.6")) >= 0) {
-            return FraudAlert.Severity.HIGH;
-        } else if (confidenceScore.compareTo(new BigDecimal("0.4")) >= 0) {
-            return FraudAlert.Severity.MEDIUM;
-        } else {
-            return FraudAlert.Severity.LOW;
-        }
-    }
 
     /**
      * Build fraud detection response
      */
-    private FraudDetectionResponse buildFraudDetectionResponse(@NotNull Transaction transaction, 
-                                                             @NotNull FraudDetectionResult result) {
+    static FraudDetectionResponse buildFraudDetectionResponse(@NotNull Transaction transaction, 
+                                                            @NotNull FraudDetectionResult result) {
         FraudDetectionResponse response = new FraudDetectionResponse();
         response.setTransactionId(transaction.getTransactionId());
         response.setFraudulent(result.isFraudulent());
         response.setConfidenceScore(result.getConfidenceScore());
         response.setTriggeredRules(result.getTriggeredRules());
+        response.setReasonCodes(result.getReasonCodes());
+        response.setTimedOutRules(result.getTimedOutRules());
         response.setStatus(result.isFraudulent() ? "FLAGGED" : "APPROVED");
         response.setProcessedAt(LocalDateTime.now());
         
         return response;
     }
 
-    /**
-     * Update user preferences based on transaction history
-     */
-    private void updateUserPreferences(@NotNull UserProfile profile, @NotNull List<Transaction> recentTransactions) {
-        if (recentTransactions.isEmpty()) return;
-        
-        // Update typical locations
-        Map<String, Long> locationCounts = recentTransactions.stream()
-                .collect(Collectors.groupingBy(Transaction::getLocation, Collectors.counting()));
-        
-        String topLocations = locationCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.joining(","));
-        
-        profile.setTypicalSpendingLocations(topLocations);
-        
-        // Update preferred payment methods
-        Map<Transaction.PaymentMethod, Long> paymentCounts = recentTransactions.stream()
-                .collect(Collectors.groupingBy(Transaction::getPaymentMethod, Collectors.counting()));
-        
-        String topPaymentMethods = paymentCounts.entrySet().stream()
-                .sorted(Map.Entry.<Transaction.PaymentMethod, Long>comparingByValue().reversed())
-                .limit(3)
-                .map(entry -> entry.getKey().toString())
-                .collect(Collectors.joining(","));
-        
-        profile.setPreferredPaymentMethods(topPaymentMethods);
-    }
-
-    /**
-     * Increment user risk score after fraud detection
-     */
-    private void incrementUserRiskScore(@NotNull User user) {
-        try {
-            UserProfile profile = user.getProfile();
-            if (profile != null && profile.getRiskScore() != null) {
-                BigDecimal newRiskScore = profile.getRiskScore()
-                        .add(new BigDecimal("0.1"))
-                        .min(new BigDecimal("1.0")); // Cap at 1.0
-                profile.setRiskScore(newRiskScore);
-            }
-        } catch (Exception e) {
-            logger.warn("Error updating risk score for user {}: {}", user.getUserId(), e.getMessage());
-        }
-    }
-
-    /**
-     * Decrement user risk score for good behavior
-     */
-    private void decrementUserRiskScore(@NotNull User user) {
-        try {
-            UserProfile profile = user.getProfile();
-            if (profile != null && profile.getRiskScore() != null) {
-                BigDecimal newRiskScore = profile.getRiskScore()
-                        .subtract(new BigDecimal("0.01"))
-                        .max(BigDecimal.ZERO); // Floor at 0.0
-                profile.setRiskScore(newRiskScore);
-            }
-        } catch (Exception e) {
-            logger.warn("Error updating risk score for user {}: {}", user.getUserId(), e.getMessage());
-        }
-    }
 
     /**
      * Clear fraud statistics cache
@@ -0,0 +1,294 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.dto.ApproximateFraudStatistics;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.state.HyperLogLog;
+import com.mj.frauddetectionsystem.state.TDigest;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mergeable sketches of fraudulent transactions per hour and per day: HyperLogLog for
+ * distinct users and merchants, t-digest for amount quantiles.
+ *
+ * Each node accumulates deltas in memory and a checkpoint merges them into the shared
+ * fraud_sketch_buckets table under a row lock, so the table holds the union over all
+ * nodes. A window query merges whole days in the middle with hours at the edges, which
+ * keeps memory and work independent of the number of transactions. Edges round out to
+ * the hour, or to the day once hourly sketches have expired. Deltas of other nodes that
+ * are not checkpointed yet are not visible.
+ */
+@Component
+public class FraudSketchStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudSketchStore.class);
+
+    private static final String HOUR = "HOUR";
+    private static final String DAY = "DAY";
+
+    private static final String LOCK_SQL =
+            "SELECT users, merchants, amounts FROM fraud_sketch_buckets WHERE granularity = ? AND bucket_start = ? FOR UPDATE";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO fraud_sketch_buckets (granularity, bucket_start, users, merchants, amounts, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE users = VALUES(users), merchants = VALUES(merchants), "
+            + "amounts = VALUES(amounts), updated_at = VALUES(updated_at)";
+
+    private static final String RANGE_SQL =
+            "SELECT users, merchants, amounts FROM fraud_sketch_buckets "
+            + "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?";
+
+    private static final String SEED_SQL =
+            "SELECT t.timestamp, u.user_id, t.merchant_name, t.amount FROM transactions t "
+            + "JOIN users u ON u.id = t.user_id WHERE t.is_fraudulent AND t.timestamp >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SeedMarkers seedMarkers;
+
+    @Value("${fraud.detection.sketches.hll-precision:12}")
+    private int hllPrecision;
+
+    @Value("${fraud.detection.sketches.tdigest-compression:100}")
+    private double compression;
+
+    @Value("${fraud.detection.sketches.hour-retention-days:7}")
+    private long hourRetentionDays;
+
+    @Value("${fraud.detection.sketches.day-retention-days:400}")
+    private long dayRetentionDays;
+
+    // Deltas since the last checkpoint; recorders share the lock, the checkpoint swaps the maps exclusively
+    private final ReadWriteLock deltaLock = new ReentrantReadWriteLock();
+    private Map<LocalDateTime, BucketSketch> hourDeltas = new ConcurrentHashMap<>();
+    private Map<LocalDateTime, BucketSketch> dayDeltas = new ConcurrentHashMap<>();
+
+    private TransactionTemplate checkpointTemplate;
+
+    @PostConstruct
+    public void init() {
+        checkpointTemplate = new TransactionTemplate(transactionManager);
+
+        // A fresh table is seeded from stored fraudulent transactions within the retention, by
+        // one node only: t-digest merges are not idempotent, so a second seed would double weights
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fraud_sketch_buckets", Integer.class);
+        if (rows != null && rows == 0) {
+            seedMarkers.seedOnce("fraud_sketch_buckets", this::seed);
+        }
+    }
+
+    /**
+     * Sketch the stored fraudulent transactions and write them in the caller's transaction
+     */
+    private void seed() {
+        LocalDateTime from = LocalDateTime.now().minusDays(dayRetentionDays).truncatedTo(ChronoUnit.DAYS);
+        int[] seeded = new int[1];
+        jdbcTemplate.query(SEED_SQL, rs -> {
+            recordFraud(rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), rs.getString(3), rs.getBigDecimal(4));
+            seeded[0]++;
+        }, Timestamp.valueOf(from));
+        checkpoint();
+        logger.info("Seeded fraud sketches from {} fraudulent transactions", seeded[0]);
+    }
+
+    /**
+     * Add a stored transaction to the sketches if it is fraudulent
+     */
+    public void record(Transaction transaction, String userId) {
+        if (transaction.isFraudulent()) {
+            recordFraud(transaction.getTimestamp(), userId, transaction.getMerchantName(), transaction.getAmount());
+        }
+    }
+
+    /**
+     * Sketch-based statistics of fraudulent transactions in [from, to), rounded out to bucket edges
+     */
+    public ApproximateFraudStatistics query(LocalDateTime from, LocalDateTime to, List<Double> quantiles) {
+        LocalDateTime hourHorizon = LocalDateTime.now().minusDays(hourRetentionDays).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime start = from.isBefore(hourHorizon) ? from.truncatedTo(ChronoUnit.DAYS) : from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime end = to.isBefore(hourHorizon) ? ceil(to, ChronoUnit.DAYS) : ceil(to, ChronoUnit.HOURS);
+        LocalDateTime firstDay = ceil(start, ChronoUnit.DAYS);
+        LocalDateTime lastDay = end.truncatedTo(ChronoUnit.DAYS);
+
+        BucketSketch merged = newSketch();
+        if (firstDay.isBefore(lastDay)) {
+            mergeRange(merged, HOUR, start, firstDay);
+            mergeRange(merged, DAY, firstDay, lastDay);
+            mergeRange(merged, HOUR, lastDay, end);
+        } else {
+            mergeRange(merged, HOUR, start, end);
+        }
+
+        ApproximateFraudStatistics stats = new ApproximateFraudStatistics();
+        stats.setFrom(start);
+        stats.setTo(end);
+        stats.setFraudulentTransactions(merged.amounts.getCount());
+        stats.setDistinctUsers(new ApproximateFraudStatistics.CardinalityEstimate(
+                merged.users.estimate(), merged.users.relativeStandardError()));
+        stats.setDistinctMerchants(new ApproximateFraudStatistics.CardinalityEstimate(
+                merged.merchants.estimate(), merged.merchants.relativeStandardError()));
+        List<ApproximateFraudStatistics.QuantileEstimate> estimates = new ArrayList<>(quantiles.size());
+        for (double q : quantiles) {
+            double value = merged.amounts.quantile(q);
+            BigDecimal amount = Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+            estimates.add(new ApproximateFraudStatistics.QuantileEstimate(q, amount, merged.amounts.rankErrorBound(q)));
+        }
+        stats.setAmountQuantiles(estimates);
+        return stats;
+    }
+
+    /**
+     * Merge this node's deltas into the shared buckets and drop expired ones
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.sketches.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        Map<LocalDateTime, BucketSketch> hours;
+        Map<LocalDateTime, BucketSketch> days;
+        deltaLock.writeLock().lock();
+        try {
+            hours = hourDeltas;
+            days = dayDeltas;
+            hourDeltas = new ConcurrentHashMap<>();
+            dayDeltas = new ConcurrentHashMap<>();
+        } finally {
+            deltaLock.writeLock().unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        flush(HOUR, hours, now);
+        flush(DAY, days, now);
+        try {
+            jdbcTemplate.update("DELETE FROM fraud_sketch_buckets WHERE (granularity = ? AND bucket_start < ?) "
+                    + "OR (granularity = ? AND bucket_start < ?)",
+                    HOUR, Timestamp.valueOf(now.minusDays(hourRetentionDays).truncatedTo(ChronoUnit.DAYS)),
+                    DAY, Timestamp.valueOf(now.minusDays(dayRetentionDays).truncatedTo(ChronoUnit.DAYS)));
+        } catch (Exception e) {
+            logger.warn("Could not prune expired fraud sketches: {}", e.getMessage());
+        }
+    }
+
+    private void recordFraud(LocalDateTime timestamp, String userId, String merchantName, BigDecimal amount) {
+        deltaLock.readLock().lock();
+        try {
+            hourDeltas.computeIfAbsent(timestamp.truncatedTo(ChronoUnit.HOURS), start -> newSketch())
+                    .add(userId, merchantName, amount);
+            dayDeltas.computeIfAbsent(timestamp.truncatedTo(ChronoUnit.DAYS), start -> newSketch())
+                    .add(userId, merchantName, amount);
+        } finally {
+            deltaLock.readLock().unlock();
+        }
+    }
+
+    private void flush(String granularity, Map<LocalDateTime, BucketSketch> deltas, LocalDateTime now) {
+        for (Map.Entry<LocalDateTime, BucketSketch> entry : deltas.entrySet()) {
+            Timestamp bucketStart = Timestamp.valueOf(entry.getKey());
+            try {
+                checkpointTemplate.executeWithoutResult(status -> {
+                    BucketSketch bucket = newSketch();
+                    jdbcTemplate.query(LOCK_SQL, rs -> {
+                        bucket.merge(BucketSketch.fromRow(rs.getBytes(1), rs.getBytes(2), rs.getBytes(3)));
+                    }, granularity, bucketStart);
+                    bucket.merge(entry.getValue());
+                    jdbcTemplate.update(UPSERT_SQL, granularity, bucketStart, bucket.users.toBytes(),
+                            bucket.merchants.toBytes(), bucket.amounts.toBytes(), Timestamp.valueOf(now));
+                });
+            } catch (Exception e) {
+                // Keep the delta for the next checkpoint
+                logger.warn("Fraud sketch checkpoint of {} {} failed: {}", granularity, entry.getKey(), e.getMessage());
+                deltaLock.readLock().lock();
+                try {
+                    (HOUR.equals(granularity) ? hourDeltas : dayDeltas)
+                            .computeIfAbsent(entry.getKey(), start -> newSketch())
+                            .merge(entry.getValue());
+                } finally {
+                    deltaLock.readLock().unlock();
+                }
+            }
+        }
+    }
+
+    private void mergeRange(BucketSketch target, String granularity, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            target.merge(BucketSketch.fromRow(rs.getBytes(1), rs.getBytes(2), rs.getBytes(3)));
+        }, granularity, Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+        deltaLock.readLock().lock();
+        try {
+            (HOUR.equals(granularity) ? hourDeltas : dayDeltas).forEach((start, delta) -> {
+                if (!start.isBefore(from) && start.isBefore(to)) {
+                    target.merge(delta);
+                }
+            });
+        } finally {
+            deltaLock.readLock().unlock();
+        }
+    }
+
+    private BucketSketch newSketch() {
+        return new BucketSketch(new HyperLogLog(hllPrecision), new HyperLogLog(hllPrecision), new TDigest(compression));
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    private static final class BucketSketch {
+        private final HyperLogLog users;
+        private final HyperLogLog merchants;
+        private final TDigest amounts;
+
+        private BucketSketch(HyperLogLog users, HyperLogLog merchants, TDigest amounts) {
+            this.users = users;
+            this.merchants = merchants;
+            this.amounts = amounts;
+        }
+
+        private static BucketSketch fromRow(byte[] users, byte[] merchants, byte[] amounts) {
+            return new BucketSketch(HyperLogLog.fromBytes(users), HyperLogLog.fromBytes(merchants), TDigest.fromBytes(amounts));
+        }
+
+        private void add(String userId, String merchantName, BigDecimal amount) {
+            users.add(userId);
+            if (merchantName != null) {
+                merchants.add(merchantName.trim().toLowerCase(Locale.ROOT));
+            }
+            amounts.add(amount.doubleValue());
+        }
+
+        private void merge(BucketSketch other) {
+            users.merge(other.users);
+            merchants.merge(other.merchants);
+            amounts.merge(other.amounts);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.mj.frauddetectionsystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Answers period statistics from the hourly and daily rollups, reading the raw
+ * transactions table only for partial hours at the edges of the range and for
+ * anything past the rollup watermark. A year-long range costs a few hundred daily
+ * rows plus at most two partial hours of transactions, and the result is exact.
+ */
+@Component
+public class FraudStatsQueryPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudStatsQueryPlanner.class);
+
+    // Same severity rule as the rollups, so edges and rolled-up stretches agree
+    private static final String RAW_SQL =
+            "SELECT COALESCE(mc.category_code, 'NONE'), " + TransactionRollupJob.SEVERITY_SQL + ", COUNT(*), "
+            + "SUM(CASE WHEN t.is_fraudulent THEN 1 ELSE 0 END), SUM(t.amount), "
+            + "SUM(CASE WHEN t.is_fraudulent THEN t.amount ELSE 0 END) "
+            + "FROM transactions t " + TransactionRollupJob.SEVERITY_JOIN_SQL
+            + "LEFT JOIN merchant_categories mc ON mc.id = t.merchant_category_id "
+            + "WHERE t.timestamp >= ? AND t.timestamp < ? GROUP BY 1, 2";
+
+    private static final String ROLLUP_SQL =
+            "SELECT COALESCE(mc.category_code, 'NONE'), r.severity, SUM(r.total_count), SUM(r.fraud_count), "
+            + "SUM(r.amount_sum), SUM(r.fraud_amount_sum) "
+            + "FROM %s r LEFT JOIN merchant_categories mc ON mc.id = r.merchant_category_id "
+            + "WHERE r.bucket_start >= ? AND r.bucket_start < ? GROUP BY 1, 2";
+
+    public enum Source {
+        RAW(null), HOURLY("transaction_rollup_hourly"), DAILY("transaction_rollup_daily");
+
+        private final String table;
+
+        Source(String table) {
+            this.table = table;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRollupJob rollupJob;
+
+    /**
+     * Totals for transactions with a timestamp in [from, to)
+     */
+    public PeriodTotals query(LocalDateTime from, LocalDateTime to) {
+        long startTime = System.currentTimeMillis();
+        List<Segment> plan = plan(from, to, rollupJob.getHourlyWatermark(), rollupJob.getDailyWatermark());
+        PeriodTotals totals = new PeriodTotals();
+        for (Segment segment : plan) {
+            Timestamp segmentFrom = Timestamp.valueOf(segment.from);
+            Timestamp segmentTo = Timestamp.valueOf(segment.to);
+            if (segment.source == Source.RAW) {
+                jdbcTemplate.query(RAW_SQL, rs -> {
+                    totals.add(rs);
+                }, segmentFrom, segmentTo, segmentFrom, segmentTo);
+            } else {
+                jdbcTemplate.query(String.format(ROLLUP_SQL, segment.source.table), rs -> {
+                    totals.add(rs);
+                }, segmentFrom, segmentTo);
+            }
+        }
+        logger.debug("Period statistics for [{}, {}) from {} in {}ms", from, to, plan, System.currentTimeMillis() - startTime);
+        return totals;
+    }
+
+    /**
+     * Split [from, to) into raw edges, hourly stretches and whole days, using rollups
+     * only below their watermarks
+     *
+     * @param hourlyEnd Hourly rollups are complete before this hour, or null if none exist
+     * @param dailyEnd Daily rollups are complete before this day, or null if none exist
+     */
+    static List<Segment> plan(LocalDateTime from, LocalDateTime to, LocalDateTime hourlyEnd, LocalDateTime dailyEnd) {
+        List<Segment> plan = new ArrayList<>();
+        LocalDateTime rolledEnd = hourlyEnd == null || hourlyEnd.isBefore(from) ? from : min(to, hourlyEnd);
+        LocalDateTime firstHour = ceil(from, ChronoUnit.HOURS);
+        LocalDateTime lastHour = rolledEnd.truncatedTo(ChronoUnit.HOURS);
+        if (!firstHour.isBefore(lastHour)) {
+            add(plan, Source.RAW, from, to);
+            return plan;
+        }
+
+        add(plan, Source.RAW, from, firstHour);
+        LocalDateTime firstDay = ceil(firstHour, ChronoUnit.DAYS);
+        LocalDateTime lastDay = dailyEnd == null ? firstDay : min(lastHour, dailyEnd).truncatedTo(ChronoUnit.DAYS);
+        if (firstDay.isBefore(lastDay)) {
+            add(plan, Source.HOURLY, firstHour, firstDay);
+            add(plan, Source.DAILY, firstDay, lastDay);
+            add(plan, Source.HOURLY, lastDay, lastHour);
+        } else {
+            add(plan, Source.HOURLY, firstHour, lastHour);
+        }
+        add(plan, Source.RAW, lastHour, to);
+        return plan;
+    }
+
+    private static void add(List<Segment> plan, Source source, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            plan.add(new Segment(source, from, to));
+        }
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * One step of a query plan: a time range read from a single source
+     */
+    static final class Segment {
+        private final Source source;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        Segment(Source source, LocalDateTime from, LocalDateTime to) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        Source getSource() { return source; }
+        LocalDateTime getFrom() { return from; }
+        LocalDateTime getTo() { return to; }
+
+        @Override
+        public String toString() {
+            return source + "[" + from + ", " + to + ")";
+        }
+    }
+
+    /**
+     * Totals of a period, with fraud broken down by merchant category and alert severity
+     */
+    public static final class PeriodTotals {
+        private long count;
+        private long fraudCount;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal fraudAmount = BigDecimal.ZERO;
+        private final Map<String, Long> fraudByCategory = new TreeMap<>();
+        private final Map<String, Long> fraudBySeverity = new TreeMap<>();
+
+        private void add(ResultSet rs) throws SQLException {
+            String category = rs.getString(1);
+            String severity = rs.getString(2);
+            long rowFraud = rs.getLong(4);
+            count += rs.getLong(3);
+            fraudCount += rowFraud;
+            amount = amount.add(zeroIfNull(rs.getBigDecimal(5)));
+            fraudAmount = fraudAmount.add(zeroIfNull(rs.getBigDecimal(6)));
+            if (rowFraud > 0) {
+                fraudByCategory.merge(category, rowFraud, Long::sum);
+                if (!"NONE".equals(severity)) {
+                    fraudBySeverity.merge(severity, rowFraud, Long::sum);
+                }
+            }
+        }
+
+        private static BigDecimal zeroIfNull(BigDecimal value) {
+            return value != null ? value : BigDecimal.ZERO;
+        }
+
+        public long getCount() { return count; }
+        public long getFraudCount() { return fraudCount; }
+        public BigDecimal getAmount() { return amount; }
+        public BigDecimal getFraudAmount() { return fraudAmount; }
+        public Map<String, Long> getFraudByCategory() { return fraudByCategory; }
+        public Map<String, Long> getFraudBySeverity() { return fraudBySeverity; }
+    }
+}
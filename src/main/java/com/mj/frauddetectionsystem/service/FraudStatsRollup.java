@@ -0,0 +1,162 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.state.TimeBucketedCounters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Materialized transaction and fraud totals for the statistics endpoints.
+ *
+ * Stored transactions are counted into {@link TimeBucketedCounters} as they commit. Each
+ * node adds what it counted since its last checkpoint to the shared fraud_stats_rollup
+ * table on a schedule and on shutdown, so the table holds the totals over all nodes. At
+ * startup the table is loaded, or seeded from the transactions table when it is empty;
+ * {@link SeedMarkers} makes sure only one node seeds, since merged seeds would double.
+ * Counts of other nodes checkpointed after startup, and counts not yet checkpointed
+ * before a crash, are not visible until the next restart.
+ */
+@Component
+public class FraudStatsRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(FraudStatsRollup.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO fraud_stats_rollup (granularity, bucket_start, total_count, fraud_count, amount_sum, "
+            + "fraud_amount_sum, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE total_count = total_count + VALUES(total_count), "
+            + "fraud_count = fraud_count + VALUES(fraud_count), amount_sum = amount_sum + VALUES(amount_sum), "
+            + "fraud_amount_sum = fraud_amount_sum + VALUES(fraud_amount_sum), updated_at = VALUES(updated_at)";
+
+    private static final String SEED_SQL =
+            "SELECT DATE_FORMAT(timestamp, '%Y-%m-%d %H:%i:00') AS minute_start, COUNT(*), "
+            + "SUM(CASE WHEN is_fraudulent THEN 1 ELSE 0 END), SUM(amount), "
+            + "SUM(CASE WHEN is_fraudulent THEN amount ELSE 0 END) "
+            + "FROM transactions GROUP BY minute_start";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SeedMarkers seedMarkers;
+
+    @Value("${fraud.detection.stats.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${fraud.detection.stats.hour-retention-days:90}")
+    private long hourRetentionDays;
+
+    private TimeBucketedCounters counters;
+
+    private TransactionTemplate checkpointTemplate;
+
+    // Runs before the web server and listeners start, so nothing is counted twice
+    @PostConstruct
+    public void init() {
+        checkpointTemplate = new TransactionTemplate(transactionManager);
+        counters = new TimeBucketedCounters(Duration.ofHours(minuteRetentionHours), Duration.ofDays(hourRetentionDays));
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fraud_stats_rollup", Integer.class);
+        if (rows != null && rows == 0 && seedMarkers.seedOnce("fraud_stats_rollup", this::seed)) {
+            logger.info("Seeded fraud statistics from {} stored transactions", counters.total().getCount());
+        } else {
+            jdbcTemplate.query("SELECT granularity, bucket_start, total_count, fraud_count, amount_sum, fraud_amount_sum "
+                    + "FROM fraud_stats_rollup", rs -> {
+                        counters.restore(TimeBucketedCounters.Granularity.valueOf(rs.getString(1)),
+                                rs.getTimestamp(2).toLocalDateTime(), rs.getLong(3), rs.getLong(4),
+                                rs.getBigDecimal(5), rs.getBigDecimal(6));
+                    });
+        }
+        counters.evict(LocalDateTime.now());
+
+        Gauge.builder("fraud.stats.buckets", counters, TimeBucketedCounters::size)
+                .description("Time buckets held for fraud statistics")
+                .register(meterRegistry);
+        logger.info("Fraud statistics loaded: {} buckets", counters.size());
+    }
+
+    /**
+     * Count every stored transaction and write the buckets in the caller's transaction
+     */
+    private void seed() {
+        jdbcTemplate.query(SEED_SQL, rs -> {
+            counters.add(Timestamp.valueOf(rs.getString(1)).toLocalDateTime(), rs.getLong(2), rs.getLong(3),
+                    rs.getBigDecimal(4), rs.getBigDecimal(5));
+        });
+        write(counters.drainDirty(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Count a stored transaction
+     */
+    public void record(Transaction transaction) {
+        counters.record(transaction.getTimestamp(), transaction.isFraudulent(), transaction.getAmount());
+    }
+
+    /**
+     * Totals of transactions with a timestamp in [from, to)
+     */
+    public TimeBucketedCounters.Totals sum(LocalDateTime from, LocalDateTime to) {
+        return counters.sum(from, to);
+    }
+
+    public TimeBucketedCounters.Totals total() {
+        return counters.total();
+    }
+
+    /**
+     * Add what was counted since the last checkpoint to the rollup table and drop expired buckets
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.stats.checkpoint-interval-ms:60000}")
+    @PreDestroy
+    public synchronized void checkpoint() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TimeBucketedCounters.BucketSnapshot> dirty = counters.drainDirty();
+        try {
+            if (!dirty.isEmpty()) {
+                // All or nothing, so the deltas can be given back and retried on failure
+                checkpointTemplate.executeWithoutResult(status -> write(dirty, Timestamp.valueOf(now)));
+            }
+            counters.evict(now);
+            jdbcTemplate.update("DELETE FROM fraud_stats_rollup WHERE (granularity = 'MINUTE' AND bucket_start < ?) "
+                    + "OR (granularity = 'HOUR' AND bucket_start < ?)",
+                    Timestamp.valueOf(counters.getMinuteHorizon()), Timestamp.valueOf(counters.getHourHorizon()));
+        } catch (Exception e) {
+            counters.markDirty(dirty);
+            logger.warn("Fraud statistics checkpoint of {} buckets failed: {}", dirty.size(), e.getMessage());
+        }
+    }
+
+    private void write(List<TimeBucketedCounters.BucketSnapshot> buckets, Timestamp updatedAt) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, buckets, buckets.size(), (ps, bucket) -> {
+            ps.setString(1, bucket.getGranularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(bucket.getBucketStart()));
+            ps.setLong(3, bucket.getCount());
+            ps.setLong(4, bucket.getFraudCount());
+            ps.setBigDecimal(5, bucket.getAmount());
+            ps.setBigDecimal(6, bucket.getFraudAmount());
+            ps.setTimestamp(7, updatedAt);
+        });
+    }
+}
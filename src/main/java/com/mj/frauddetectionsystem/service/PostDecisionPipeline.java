@@ -0,0 +1,179 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous post-decision stage.
+ *
+ * Work is striped over single-threaded lanes by user, so each user's transactions
+ * are processed in commit order while different users proceed in parallel. Lane
+ * queues are bounded: a full lane makes the submitter wait until there is room, which
+ * pushes back on the request threads instead of running work out of order or dropping it.
+ */
+@Component
+public class PostDecisionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostDecisionPipeline.class);
+
+    @Autowired
+    private PostDecisionService postDecisionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.pipeline.async-post-decision.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.pipeline.async-post-decision.lanes:4}")
+    private int laneCount;
+
+    @Value("${fraud.detection.pipeline.async-post-decision.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${fraud.detection.pipeline.async-post-decision.submit-timeout-ms:50}")
+    private long submitTimeoutMs;
+
+    private ThreadPoolExecutor[] lanes;
+    private Timer lagTimer;
+    private Timer processingTimer;
+    private Counter backpressureWaits;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String threadName = "post-decision-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (runnable, executor) -> waitForCapacity(runnable, executor));
+        }
+
+        Gauge.builder("fraud.postdecision.queue.depth", this, PostDecisionPipeline::getQueueDepth)
+                .description("Post-decision tasks waiting across all lanes")
+                .register(meterRegistry);
+        lagTimer = Timer.builder("fraud.postdecision.lag")
+                .description("Time from commit until post-decision work starts")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        processingTimer = Timer.builder("fraud.postdecision.duration")
+                .description("Post-decision processing time")
+                .register(meterRegistry);
+        backpressureWaits = Counter.builder("fraud.postdecision.backpressure")
+                .description("Post-decision submissions that waited for room on a full lane")
+                .register(meterRegistry);
+
+        logger.info("Asynchronous post-decision pipeline enabled: {} lanes, {} queued tasks per lane",
+                   laneCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lanes == null) {
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Post-decision lane did not drain; {} tasks abandoned", lane.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue post-decision work for a committed transaction on its user's lane
+     *
+     * @param userKey Database id of the transaction's user, used to pick the lane
+     * @param transactionKey Database id of the committed transaction
+     * @param result Fraud decision for the transaction
+     */
+    public void submit(Long userKey, Long transactionKey, FraudDetectionResult result) {
+        long enqueuedNanos = System.nanoTime();
+        ThreadPoolExecutor lane = lanes[Math.floorMod(userKey.hashCode(), lanes.length)];
+        lane.execute(() -> {
+            lagTimer.record(System.nanoTime() - enqueuedNanos, TimeUnit.NANOSECONDS);
+            processingTimer.record(() -> {
+                try {
+                    postDecisionService.processCommitted(transactionKey, result);
+                } catch (Exception e) {
+                    logger.error("Post-decision processing failed for transaction {}: {}",
+                                result.getTransaction().getTransactionId(), e.getMessage(), e);
+                }
+            });
+        });
+    }
+
+    public int getQueueDepth() {
+        if (lanes == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * Wait for room on a full lane, checking for shutdown every submit timeout. A lane shut
+     * down meanwhile is drained first, so the task still runs after the user's earlier work.
+     * Interrupts do not end the wait, since giving up would lose or reorder the task.
+     */
+    private void waitForCapacity(Runnable runnable, ThreadPoolExecutor executor) {
+        backpressureWaits.increment();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (executor.isShutdown()) {
+                        executor.awaitTermination(10, TimeUnit.SECONDS);
+                        logger.warn("Post-decision lane shut down; running task on the submitting thread");
+                        runnable.run();
+                        return;
+                    }
+                    if (executor.getQueue().offer(runnable, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
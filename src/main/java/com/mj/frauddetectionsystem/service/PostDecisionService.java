@@ -0,0 +1,391 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.dto.FraudAlertMessage;
+import com.mj.frauddetectionsystem.model.*;
+import com.mj.frauddetectionsystem.repository.FraudAlertRepository;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import com.mj.frauddetectionsystem.state.UserSnapshotCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work that follows a fraud decision but does not change it: alerting, notification
+ * and user profile maintenance.
+ *
+ * Runs either inline, inside the transaction that saved the decision, or later on
+ * the post-decision pipeline, in a transaction of its own.
+ */
+@Service
+@Transactional
+public class PostDecisionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostDecisionService.class);
+
+    // Column lengths of the encoded sketches on UserProfile
+    private static final int LOCATION_SKETCH_LENGTH = 2000;
+    private static final int PAYMENT_METHOD_SKETCH_LENGTH = 500;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FraudAlertRepository fraudAlertRepository;
+
+    @Autowired
+    private UserSnapshotCache userSnapshotCache;
+
+    @Autowired
+    private FraudAlertOutbox fraudAlertOutbox;
+
+    @Value("${fraud.detection.alerts.kafka.enabled:false}")
+    private boolean kafkaAlertsEnabled;
+
+    @Value("${fraud.detection.alerts.email.enabled:false}")
+    private boolean emailAlertsEnabled;
+
+    @Value("${fraud.detection.profile.half-life-days:10}")
+    private double profileHalfLifeDays;
+
+    @Value("${fraud.detection.profile.sketch-capacity:12}")
+    private int sketchCapacity;
+
+    /**
+     * Run post-decision work for a transaction saved in the current persistence context
+     *
+     * @param transaction Saved transaction
+     * @param result Fraud decision for the transaction
+     */
+    public void process(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        if (result.isFraudulent()) {
+            handleFraudDetected(transaction, result);
+        } else {
+            handleLegitimateTransaction(transaction);
+        }
+
+        // Update user profile based on transaction
+        updateUserProfile(transaction.getUser(), List.of(transaction));
+        
+        // The profile's running average changed; refresh the cached snapshot once committed
+        userSnapshotCache.refresh(transaction.getUser());
+    }
+
+    /**
+     * Run post-decision work for a committed transaction in a new transaction,
+     * reloading it so nothing is shared with the request that made the decision
+     *
+     * @param transactionKey Database id of the committed transaction
+     * @param result Fraud decision for the transaction
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processCommitted(@NotNull Long transactionKey, @NotNull FraudDetectionResult result) {
+        Transaction transaction = transactionRepository.findById(transactionKey).orElse(null);
+        if (transaction == null) {
+            logger.warn("Skipping post-decision work: transaction {} no longer exists", transactionKey);
+            return;
+        }
+        process(transaction, new FraudDetectionResult(transaction, result.isFraudulent(), result.getTriggeredRules(),
+                result.getConfidenceScore(), result.getTimedOutRules(), result.getReasonCodes()));
+    }
+
+    /**
+     * Run post-decision work for a chunk of bulk-inserted transactions in one new
+     * transaction. Their alerts and outbox messages were inserted together with the
+     * transactions, so only notification, risk score and profile maintenance are left.
+     *
+     * @param resultsByTransactionKey Fraud decisions keyed by database id of the committed transaction
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processBulkCommitted(@NotNull Map<Long, FraudDetectionResult> resultsByTransactionKey) {
+        Map<User, List<Transaction>> transactionsByUser = new LinkedHashMap<>();
+        for (Transaction transaction : transactionRepository.findAllWithUserByIdIn(resultsByTransactionKey.keySet())) {
+            FraudDetectionResult result = resultsByTransactionKey.get(transaction.getId());
+            if (result.isFraudulent()) {
+                notifyFraud(transaction, result);
+            } else {
+                decrementUserRiskScore(transaction.getUser());
+            }
+            transactionsByUser.computeIfAbsent(transaction.getUser(), user -> new ArrayList<>()).add(transaction);
+        }
+        
+        // One profile update per user, so seeding from history cannot count a chunk's transactions twice
+        transactionsByUser.forEach((user, transactions) -> {
+            updateUserProfile(user, transactions);
+            userSnapshotCache.refresh(user);
+        });
+    }
+
+    /**
+     * Update user profile based on transaction patterns
+     * 
+     * @param user User entity
+     * @param transactions Newly saved transactions of the user, oldest first
+     */
+    @CacheEvict(value = "user-transactions", key = "#user.userId")
+    private void updateUserProfile(@NotNull User user, @NotNull List<Transaction> transactions) {
+        try {
+            UserProfile profile = user.getProfile();
+            if (profile == null) {
+                profile = new UserProfile();
+                profile.setUser(user);
+                user.setProfile(profile);
+            }
+            
+            
+            updateAmountStatistics(profile, user, transactions);
+            BigDecimal currentAverage = profile.getAmountStatistics().getAverage();
+            if (currentAverage != null) {
+                profile.setAverageMonthlySpending(currentAverage.multiply(new BigDecimal("30"))); // Rough monthly estimate
+            }
+            
+           
+            updateUserPreferences(profile, user, transactions);
+            
+            logger.debug("Updated user profile for user: {}", user.getUserId());
+            
+        } catch (Exception e) {
+            logger.warn("Error updating user profile for user {}: {}", user.getUserId(), e.getMessage());
+        }
+    }
+
+   
+    /**
+     * Fold the transaction amounts into the profile's running statistics. Empty
+     * statistics (new profiles, or profiles that predate them) are seeded once from
+     * the full history, which already includes the saved transactions.
+     */
+    private void updateAmountStatistics(UserProfile profile, User user, List<Transaction> transactions) {
+        AmountStatistics statistics = profile.getAmountStatistics();
+        if (statistics.isEmpty()) {
+            List<Object[]> aggregates = transactionRepository.getAmountAggregates(user);
+            if (!aggregates.isEmpty() && aggregates.get(0)[0] != null) {
+                Object[] row = aggregates.get(0);
+                statistics.seed(((Number) row[0]).longValue(), (BigDecimal) row[1],
+                                row[2] != null ? ((Number) row[2]).doubleValue() : 0.0,
+                                (BigDecimal) row[3], (BigDecimal) row[4]);
+                return;
+            }
+        }
+        for (Transaction transaction : transactions) {
+            statistics.record(transaction.getAmount());
+        }
+    }
+
+    /**
+     * Handle actions when fraud is detected
+     */
+    private void handleFraudDetected(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        logger.warn("FRAUD DETECTED - Transaction: {}, User: {}, Amount: ${}, Confidence: {}", 
+                   transaction.getTransactionId(), transaction.getUser().getUserId(), 
+                   transaction.getAmount(), result.getConfidenceScore());
+        
+        // Create fraud alert
+        createFraudAlert(transaction, result);
+        
+        notifyFraud(transaction, result);
+    }
+
+    /**
+     * Notify about a fraudulent transaction and raise the user's risk score
+     */
+    private void notifyFraud(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        // Send email alert if enabled
+        if (emailAlertsEnabled) {
+            sendEmailAlert(transaction, result);
+        }
+        
+        // Update user risk score
+        incrementUserRiskScore(transaction.getUser());
+    }
+
+    /**
+     * Handle legitimate transactions
+     */
+    private void handleLegitimateTransaction(@NotNull Transaction transaction) {
+        logger.debug("Transaction {} approved for user: {}", 
+                    transaction.getTransactionId(), transaction.getUser().getUserId());
+        
+        // Optionally decrease user risk score for good behavior
+        decrementUserRiskScore(transaction.getUser());
+    }
+
+    /**
+     * Create fraud alert
+     */
+    private void createFraudAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        try {
+            fraudAlertRepository.save(buildFraudAlert(transaction, result));
+            
+            // Written in the same transaction as the alert, relayed to Kafka later
+            if (kafkaAlertsEnabled) {
+                fraudAlertOutbox.enqueue(buildAlertMessage(transaction, result));
+            }
+            
+            logger.info("Fraud alert created for transaction: {} with confidence: {}", 
+                       transaction.getTransactionId(), result.getConfidenceScore());
+            
+        } catch (Exception e) {
+            logger.error("Error creating fraud alert for transaction {}: {}", 
+                        transaction.getTransactionId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the open alert raised for a fraudulent transaction
+     */
+    static FraudAlert buildFraudAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        FraudAlert alert = new FraudAlert();
+        alert.setUser(transaction.getUser());
+        alert.setTransaction(transaction);
+        alert.setAlertType("FRAUD_DETECTION");
+        alert.setDescription(String.format("Transaction %s flagged by fraud detection system. Rules: %s", 
+                           transaction.getTransactionId(), String.join(", ", result.getTriggeredRules())));
+        alert.setSeverity(determineSeverity(result.getConfidenceScore()));
+        alert.setTriggeredRules(String.join(", ", result.getTriggeredRules()));
+        alert.setConfidenceScore(result.getConfidenceScore());
+        alert.setAlertTime(LocalDateTime.now());
+        alert.setStatus(FraudAlert.AlertStatus.OPEN);
+        return alert;
+    }
+
+    /**
+     * Build the Kafka message published for a fraudulent transaction
+     */
+    static FraudAlertMessage buildAlertMessage(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        return new FraudAlertMessage(
+            transaction.getTransactionId(),
+            transaction.getUser().getUserId(),
+            transaction.getAmount(),
+            result.getConfidenceScore(),
+            result.getTriggeredRules()
+        );
+    }
+
+    /**
+     * Send email alert (placeholder implementation)
+     */
+    private void sendEmailAlert(@NotNull Transaction transaction, @NotNull FraudDetectionResult result) {
+        // TODO: Implement email sending logic
+        logger.info("Email alert would be sent for transaction: {}", transaction.getTransactionId());
+    }
+
+    /**
+     * Determine alert severity based on confidence score
+     */
+    private static FraudAlert.Severity determineSeverity(@NotNull BigDecimal confidenceScore) {
+        if (confidenceScore.compareTo(new BigDecimal("0.8")) >= 0) {
+            return FraudAlert.Severity.CRITICAL;
+        } else if (confidenceScore.compareTo(new BigDecimal("0.6")) >= 0) {
+            return FraudAlert.Severity.HIGH;
+        } else if (confidenceScore.compareTo(new BigDecimal("0.4")) >= 0) {
+            return FraudAlert.Severity.MEDIUM;
+        } else {
+            return FraudAlert.Severity.LOW;
+        }
+    }
+
+    /**
+     * Update preferred locations, payment methods and the fraud ratio behind the risk
+     * score from decayed sketches kept on the profile. Each transaction is an O(1)
+     * update; a profile without sketches is seeded once from the last 30 days.
+     */
+    private void updateUserPreferences(@NotNull UserProfile profile, @NotNull User user, @NotNull List<Transaction> transactions) {
+        HeavyHitterSketch locations = HeavyHitterSketch.parse(profile.getLocationSketch(), sketchCapacity);
+        HeavyHitterSketch paymentMethods = HeavyHitterSketch.parse(profile.getPaymentMethodSketch(), sketchCapacity);
+        DecayedFraudRatio fraudRatio = profile.getFraudRatio();
+        
+        if (locations.isEmpty() && paymentMethods.isEmpty() && fraudRatio.isEmpty()) {
+            List<Transaction> history = transactionRepository.findUserTransactionsAfter(
+                    user, LocalDateTime.now().minusDays(30)); // Newest first, includes the saved transactions
+            Set<String> recorded = new HashSet<>();
+            for (int i = history.size() - 1; i >= 0; i--) {
+                Transaction past = history.get(i);
+                recorded.add(past.getTransactionId());
+                recordObservation(locations, paymentMethods, fraudRatio, past);
+            }
+            for (Transaction transaction : transactions) {
+                if (!recorded.contains(transaction.getTransactionId())) {
+                    recordObservation(locations, paymentMethods, fraudRatio, transaction);
+                }
+            }
+        } else {
+            for (Transaction transaction : transactions) {
+                recordObservation(locations, paymentMethods, fraudRatio, transaction);
+            }
+        }
+        
+        profile.setLocationSketch(locations.encode(LOCATION_SKETCH_LENGTH));
+        profile.setPaymentMethodSketch(paymentMethods.encode(PAYMENT_METHOD_SKETCH_LENGTH));
+        profile.setTypicalSpendingLocations(String.join(",", locations.top(5)));
+        profile.setPreferredPaymentMethods(String.join(",", paymentMethods.top(3)));
+        
+        BigDecimal riskScore = fraudRatio.getRatio();
+        if (riskScore != null) {
+            profile.setRiskScore(riskScore);
+        }
+    }
+        
+    private void recordObservation(HeavyHitterSketch locations, HeavyHitterSketch paymentMethods,
+                                   DecayedFraudRatio fraudRatio, Transaction transaction) {
+        long epochSecond = transaction.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        double halfLifeSeconds = profileHalfLifeDays * 86_400.0;
+        locations.add(transaction.getLocation(), epochSecond, halfLifeSeconds);
+        if (transaction.getPaymentMethod() != null) {
+            paymentMethods.add(transaction.getPaymentMethod().toString(), epochSecond, halfLifeSeconds);
+        }
+        fraudRatio.record(transaction.isFraudulent(), epochSecond, halfLifeSeconds);
+    }
+
+    /**
+     * Increment user risk score after fraud detection
+     */
+    private void incrementUserRiskScore(@NotNull User user) {
+        try {
+            UserProfile profile = user.getProfile();
+            if (profile != null && profile.getRiskScore() != null) {
+                BigDecimal newRiskScore = profile.getRiskScore()
+                        .add(new BigDecimal("0.1"))
+                        .min(new BigDecimal("1.0")); // Cap at 1.0
+                profile.setRiskScore(newRiskScore);
+            }
+        } catch (Exception e) {
+            logger.warn("Error updating risk score for user {}: {}", user.getUserId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Decrement user risk score for good behavior
+     */
+    private void decrementUserRiskScore(@NotNull User user) {
+        try {
+            UserProfile profile = user.getProfile();
+            if (profile != null && profile.getRiskScore() != null) {
+                BigDecimal newRiskScore = profile.getRiskScore()
+                        .subtract(new BigDecimal("0.01"))
+                        .max(BigDecimal.ZERO); // Floor at 0.0
+                profile.setRiskScore(newRiskScore);
+            }
+        } catch (Exception e) {
+            logger.warn("Error updating risk score for user {}: {}", user.getUserId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mj.frauddetectionsystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Makes sure a shared table is seeded by one node only.
+ *
+ * The seed runs in the transaction that inserts the table's row in seed_markers. A node
+ * starting at the same time blocks on that row until the seed commits and then finds the
+ * marker, or takes over if the seeding node failed and its transaction rolled back.
+ */
+@Component
+public class SeedMarkers {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedMarkers.class);
+
+    private static final String MARK_SQL = "INSERT IGNORE INTO seed_markers (name, seeded_at) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Run the seed, writing through the JdbcTemplate, unless another node has seeded already
+     *
+     * @return true if this node seeded
+     */
+    public boolean seedOnce(String name, Runnable seed) {
+        TransactionTemplate seedTemplate = new TransactionTemplate(transactionManager);
+        while (true) {
+            try {
+                return Boolean.TRUE.equals(seedTemplate.execute(status -> {
+                    if (jdbcTemplate.update(MARK_SQL, name, Timestamp.valueOf(LocalDateTime.now())) == 0) {
+                        return false;
+                    }
+                    seed.run();
+                    return true;
+                }));
+            } catch (PessimisticLockingFailureException e) {
+                // Lock wait timeout while a long seed on another node holds the marker
+                logger.info("Waiting for another node to finish seeding {}", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes transactions to the ingest topic for asynchronous scoring.
+ *
+ * Events are keyed by user ID so that every event of a user lands on the same
+ * partition, which is what lets the consuming instance keep that user's state locally.
+ */
+@Service
+public class TransactionEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionEventPublisher.class);
+
+    @Autowired(required = false)
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${fraud.detection.ingest.kafka.topic:transaction-events}")
+    private String topic;
+
+    /**
+     * Send a transaction to the ingest topic
+     *
+     * @param request Transaction to score
+     * @return Completes once the broker has acknowledged the event
+     */
+    public CompletableFuture<SendResult<String, Object>> publish(TransactionRequest request) {
+        if (kafkaTemplate == null) {
+            throw new IllegalStateException("Kafka is not configured; transaction events cannot be published");
+        }
+        FraudDetectionService.validateRequestFields(request);
+        return kafkaTemplate.send(topic, request.getUserId(), request)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        logger.error("Failed to publish transaction event {}: {}", request.getTransactionId(), e.getMessage());
+                    }
+                });
+    }
+}
@@ -0,0 +1,191 @@
+package com.mj.frauddetectionsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Incrementally maintains the hourly and daily transaction rollups.
+ *
+ * Each run aggregates the closed hours past the hourly watermark from the transactions
+ * table, grouped by merchant category and the highest severity of a transaction's alerts,
+ * then folds every completed day of hourly rows into the daily table. An hour is closed
+ * once it ended more than the grace period ago. The last reaggregate-hours closed hours,
+ * and the days they fall in, are aggregated again on every run, so transactions committed
+ * late and alerts raised after their transaction are picked up. A window is replaced
+ * along with its watermark in one transaction, so an interrupted run is simply repeated.
+ */
+@Component
+public class TransactionRollupJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupJob.class);
+
+    private static final String HOURLY = "hourly";
+    private static final String DAILY = "daily";
+
+    /**
+     * Highest alert severity per transaction of t, or NONE, for transactions with a timestamp
+     * in the range bound by the join's two parameters. One row per alerted transaction, so
+     * a transaction with several alerts is counted once.
+     */
+    static final String SEVERITY_SQL = "COALESCE(ELT(a.severity_rank, 'LOW', 'MEDIUM', 'HIGH', 'CRITICAL'), 'NONE')";
+
+    static final String SEVERITY_JOIN_SQL =
+            "LEFT JOIN (SELECT fa.transaction_id, "
+            + "MAX(FIELD(fa.severity, 'LOW', 'MEDIUM', 'HIGH', 'CRITICAL')) AS severity_rank "
+            + "FROM fraud_alerts fa JOIN transactions ft ON ft.id = fa.transaction_id "
+            + "WHERE ft.timestamp >= ? AND ft.timestamp < ? GROUP BY fa.transaction_id"
+            + ") a ON a.transaction_id = t.id ";
+
+    private static final String ROLLUP_HOURS_SQL =
+            "INSERT INTO transaction_rollup_hourly (bucket_start, merchant_category_id, severity, total_count, "
+            + "fraud_count, amount_sum, fraud_amount_sum) "
+            + "SELECT DATE_FORMAT(t.timestamp, '%Y-%m-%d %H:00:00'), COALESCE(t.merchant_category_id, 0), "
+            + SEVERITY_SQL + ", COUNT(*), SUM(CASE WHEN t.is_fraudulent THEN 1 ELSE 0 END), "
+            + "SUM(t.amount), SUM(CASE WHEN t.is_fraudulent THEN t.amount ELSE 0 END) "
+            + "FROM transactions t " + SEVERITY_JOIN_SQL
+            + "WHERE t.timestamp >= ? AND t.timestamp < ? "
+            + "GROUP BY 1, 2, 3";
+
+    private static final String DELETE_HOURS_SQL =
+            "DELETE FROM transaction_rollup_hourly WHERE bucket_start >= ? AND bucket_start < ?";
+
+    private static final String ROLLUP_DAYS_SQL =
+            "INSERT INTO transaction_rollup_daily (bucket_start, merchant_category_id, severity, total_count, "
+            + "fraud_count, amount_sum, fraud_amount_sum) "
+            + "SELECT DATE(bucket_start), merchant_category_id, severity, SUM(total_count), SUM(fraud_count), "
+            + "SUM(amount_sum), SUM(fraud_amount_sum) "
+            + "FROM transaction_rollup_hourly WHERE bucket_start >= ? AND bucket_start < ? "
+            + "GROUP BY 1, 2, 3";
+
+    private static final String DELETE_DAYS_SQL =
+            "DELETE FROM transaction_rollup_daily WHERE bucket_start >= ? AND bucket_start < ?";
+
+    private static final String SAVE_WATERMARK_SQL =
+            "INSERT INTO rollup_watermarks (name, rolled_up_to) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE rolled_up_to = VALUES(rolled_up_to)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${fraud.detection.rollup.grace-minutes:5}")
+    private long graceMinutes;
+
+    @Value("${fraud.detection.rollup.max-hours-per-window:168}")
+    private int maxHoursPerWindow;
+
+    @Value("${fraud.detection.rollup.reaggregate-hours:6}")
+    private long reaggregateHours;
+
+    private TransactionTemplate windowTemplate;
+
+    // Rollups are complete for buckets before these; null until there is anything to roll up
+    private volatile LocalDateTime hourlyWatermark;
+    private volatile LocalDateTime dailyWatermark;
+
+    @PostConstruct
+    public void init() {
+        windowTemplate = new TransactionTemplate(transactionManager);
+        hourlyWatermark = loadWatermark(HOURLY);
+        dailyWatermark = loadWatermark(DAILY);
+    }
+
+    public LocalDateTime getHourlyWatermark() {
+        return hourlyWatermark;
+    }
+
+    public LocalDateTime getDailyWatermark() {
+        return dailyWatermark;
+    }
+
+    /**
+     * Roll up every closed hour and completed day past the watermarks, and the trailing
+     * hours and days again
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.rollup.interval-ms:60000}")
+    public synchronized void rollUp() {
+        LocalDateTime closedUpTo = LocalDateTime.now().minusMinutes(graceMinutes).truncatedTo(ChronoUnit.HOURS);
+        try {
+            if (hourlyWatermark == null && !start()) {
+                return;
+            }
+
+            LocalDateTime trailing = closedUpTo.minusHours(reaggregateHours);
+            LocalDateTime cursor = hourlyWatermark.isBefore(trailing) ? hourlyWatermark : trailing;
+            LocalDateTime refoldFrom = cursor.truncatedTo(ChronoUnit.DAYS);
+            int hours = 0;
+            while (cursor.isBefore(closedUpTo)) {
+                LocalDateTime from = cursor;
+                LocalDateTime to = from.plusHours(maxHoursPerWindow).isBefore(closedUpTo)
+                        ? from.plusHours(maxHoursPerWindow) : closedUpTo;
+                LocalDateTime watermark = to.isAfter(hourlyWatermark) ? to : hourlyWatermark;
+                windowTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(DELETE_HOURS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+                    jdbcTemplate.update(ROLLUP_HOURS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to),
+                            Timestamp.valueOf(from), Timestamp.valueOf(to));
+                    jdbcTemplate.update(SAVE_WATERMARK_SQL, HOURLY, Timestamp.valueOf(watermark));
+                });
+                hourlyWatermark = watermark;
+                cursor = to;
+                hours += (int) ChronoUnit.HOURS.between(from, to);
+            }
+
+            LocalDateTime completedDays = hourlyWatermark.truncatedTo(ChronoUnit.DAYS);
+            LocalDateTime daysFrom = dailyWatermark.isBefore(refoldFrom) ? dailyWatermark : refoldFrom;
+            if (daysFrom.isBefore(completedDays)) {
+                windowTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(DELETE_DAYS_SQL, Timestamp.valueOf(daysFrom), Timestamp.valueOf(completedDays));
+                    jdbcTemplate.update(ROLLUP_DAYS_SQL, Timestamp.valueOf(daysFrom), Timestamp.valueOf(completedDays));
+                    jdbcTemplate.update(SAVE_WATERMARK_SQL, DAILY, Timestamp.valueOf(completedDays));
+                });
+                dailyWatermark = completedDays;
+            }
+            if (hours > 0) {
+                logger.debug("Rolled up {} hours; hourly rollups complete to {}, daily to {}",
+                            hours, hourlyWatermark, dailyWatermark);
+            }
+        } catch (Exception e) {
+            logger.warn("Transaction rollup stopped at {}: {}", hourlyWatermark, e.getMessage());
+        }
+    }
+
+    /**
+     * Set both watermarks to the start of the day of the oldest transaction, so the
+     * daily rollup lines up with the hourly one
+     *
+     * @return false if there are no transactions yet
+     */
+    private boolean start() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM transactions", Timestamp.class);
+        if (first == null) {
+            return false;
+        }
+        Timestamp start = Timestamp.valueOf(first.toLocalDateTime().truncatedTo(ChronoUnit.DAYS));
+        windowTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SAVE_WATERMARK_SQL, HOURLY, start);
+            jdbcTemplate.update(SAVE_WATERMARK_SQL, DAILY, start);
+        });
+        hourlyWatermark = start.toLocalDateTime();
+        dailyWatermark = hourlyWatermark;
+        return true;
+    }
+
+    private LocalDateTime loadWatermark(String name) {
+        return jdbcTemplate.query("SELECT rolled_up_to FROM rollup_watermarks WHERE name = ?",
+                rs -> rs.next() ? rs.getTimestamp(1).toLocalDateTime() : null, name);
+    }
+}
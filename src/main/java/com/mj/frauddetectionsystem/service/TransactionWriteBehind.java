@@ -0,0 +1,314 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mj.frauddetectionsystem.exception.FraudDetectionException;
+import com.mj.frauddetectionsystem.journal.JournaledTransaction;
+import com.mj.frauddetectionsystem.journal.TransactionJournal;
+import com.mj.frauddetectionsystem.model.MerchantCategory;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.repository.UserRepository;
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import com.mj.frauddetectionsystem.state.PendingTransactionIds;
+import com.mj.frauddetectionsystem.state.TransactionIdFilter;
+import com.mj.frauddetectionsystem.state.UserVelocityStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional write-behind mode for analyzed transactions.
+ *
+ * Instead of committing each transaction to MySQL, the analyze path appends it to a
+ * local {@link TransactionJournal} and returns once the journal's group commit has made
+ * it durable. A writer on its own thread drains the journal into MySQL in large batches
+ * through the bulk insert path, which also raises alerts and updates profiles; so alerts
+ * and the stored rows lag the response by up to one flush interval. The writer does not
+ * share the application scheduler, so slow scheduled jobs cannot hold it up. Entries still in the
+ * journal at startup are replayed, and transactions that already reached the database
+ * before a crash are skipped as duplicates. A journaled transaction's ID stays claimed in
+ * {@link PendingTransactionIds} until it is stored, so no other path can store it first.
+ */
+@Component
+public class TransactionWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionWriteBehind.class);
+
+    @Autowired
+    private BulkTransactionService bulkTransactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MerchantCategoryCache merchantCategoryCache;
+
+    @Autowired
+    private UserVelocityStore velocityStore;
+
+    @Autowired
+    private TransactionIdFilter transactionIdFilter;
+
+    @Autowired
+    private PendingTransactionIds pendingTransactionIds;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.write-behind.directory:data/journal}")
+    private String directory;
+
+    @Value("${fraud.detection.write-behind.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${fraud.detection.write-behind.sync-timeout-ms:1000}")
+    private long syncTimeoutMs;
+
+    @Value("${fraud.detection.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${fraud.detection.write-behind.batch-size:1000}")
+    private int batchSize;
+
+    private TransactionJournal journal;
+    private ScheduledExecutorService writer;
+
+    // Journaled but not yet stored, in sequence order; guarded by itself
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private final Object flushLock = new Object();
+    private Counter flushed;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new TransactionJournal(Paths.get(directory), segmentSizeMb * 1024 * 1024);
+        List<TransactionJournal.Record> records = journal.recover();
+        for (TransactionJournal.Record record : records) {
+            JournaledTransaction entry = objectMapper.readValue(record.getPayload(), JournaledTransaction.class);
+            pending.addLast(new Pending(record.getSequence(), entry, true));
+            pendingTransactionIds.claim(entry.getTransactionId());
+            transactionIdFilter.put(entry.getTransactionId());
+        }
+        if (!records.isEmpty()) {
+            logger.info("Replaying {} journaled transactions from {}", records.size(), directory);
+        }
+
+        flushed = Counter.builder("fraud.write-behind.flushed")
+                .description("Journaled transactions written to the database")
+                .register(meterRegistry);
+        Gauge.builder("fraud.write-behind.pending", this, TransactionWriteBehind::getPendingCount)
+                .description("Journaled transactions not yet written to the database")
+                .register(meterRegistry);
+        Gauge.builder("fraud.write-behind.segments", journal, TransactionJournal::getSegmentCount)
+                .description("Journal segment files on disk")
+                .register(meterRegistry);
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // An escaping exception would cancel the schedule, so log it and keep running
+        writer.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Write-behind writer failed, will retry: {}", e.getMessage(), e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Whether the transaction ID is journaled and still waiting to be written
+     */
+    public boolean isPending(String transactionId) {
+        return isEnabled() && pendingTransactionIds.contains(transactionId);
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Journal a scored transaction and wait for it to be durable. The caller has claimed
+     * the transaction ID; it is released once the transaction is stored.
+     *
+     * @throws FraudDetectionException if the journal does not sync in time; the
+     *         transaction may still be written later
+     */
+    public void journal(Transaction transaction, String userId, FraudDetectionResult result) {
+        JournaledTransaction entry = JournaledTransaction.of(transaction, userId, result);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (JsonProcessingException e) {
+            pendingTransactionIds.release(transaction.getTransactionId());
+            throw new FraudDetectionException("Could not journal transaction " + transaction.getTransactionId(), e);
+        }
+
+        long sequence;
+        synchronized (pending) {
+            sequence = journal.append(payload);
+            pending.addLast(new Pending(sequence, entry, false));
+        }
+
+        try {
+            journal.awaitDurable(sequence, syncTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FraudDetectionException("Interrupted while journaling transaction " + transaction.getTransactionId(), e);
+        } catch (TimeoutException e) {
+            throw new FraudDetectionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write journaled transactions to the database, oldest first, until the journal is drained.
+     * A failed batch stays at the head of the journal for the next run.
+     */
+    public void flush() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<Pending> batch;
+            do {
+                batch = nextBatch();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    store(batch);
+                } catch (Exception e) {
+                    logger.warn("Write-behind flush of {} transactions failed, will retry: {}", batch.size(), e.getMessage());
+                    return;
+                }
+
+                synchronized (pending) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        pending.removeFirst();
+                    }
+                }
+                for (Pending entry : batch) {
+                    pendingTransactionIds.release(entry.entry.getTransactionId());
+                }
+                journal.release(batch.get(batch.size() - 1).sequence);
+                flushed.increment(batch.size());
+            } while (batch.size() == batchSize);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(syncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    private List<Pending> nextBatch() {
+        synchronized (pending) {
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            for (Pending entry : pending) {
+                if (batch.size() == batchSize) {
+                    break;
+                }
+                batch.add(entry);
+            }
+            return batch;
+        }
+    }
+
+    private void store(List<Pending> batch) {
+        Set<String> userIds = new HashSet<>();
+        for (Pending entry : batch) {
+            userIds.add(entry.entry.getUserId());
+        }
+        Map<String, User> users = new HashMap<>();
+        for (User user : userRepository.findWithProfileByUserIdIn(userIds)) {
+            users.put(user.getUserId(), user);
+        }
+
+        List<FraudDetectionResult> results = new ArrayList<>(batch.size());
+        Set<String> recovered = new HashSet<>();
+        for (Pending entry : batch) {
+            User user = users.get(entry.entry.getUserId());
+            if (user == null) {
+                logger.error("Dropping journaled transaction {}: user {} not found",
+                            entry.entry.getTransactionId(), entry.entry.getUserId());
+                continue;
+            }
+            MerchantCategory category = entry.entry.getMerchantCategoryCode() != null
+                    ? merchantCategoryCache.findByCode(entry.entry.getMerchantCategoryCode()).orElse(null)
+                    : null;
+            results.add(entry.entry.toResult(user, category));
+            if (entry.recovered) {
+                recovered.add(entry.entry.getTransactionId());
+            }
+        }
+
+        // Live entries were counted when they were journaled; replayed ones only now
+        for (FraudDetectionResult result : bulkTransactionService.storeScored(results)) {
+            if (recovered.contains(result.getTransaction().getTransactionId())) {
+                velocityStore.record(result.getTransaction());
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final long sequence;
+        private final JournaledTransaction entry;
+        private final boolean recovered;
+
+        private Pending(long sequence, JournaledTransaction entry, boolean recovered) {
+            this.sequence = sequence;
+            this.entry = entry;
+            this.recovered = recovered;
+        }
+    }
+}
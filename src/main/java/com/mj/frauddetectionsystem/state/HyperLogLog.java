@@ -0,0 +1,116 @@
+package com.mj.frauddetectionsystem.state;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog cardinality sketch over strings.
+ *
+ * 2^precision one-byte registers keep the longest run of leading zeros seen per hash
+ * prefix; the estimate has a relative standard error of about 1.04 / sqrt(registers),
+ * with linear counting for small cardinalities. Sketches of the same precision merge
+ * by taking the register-wise maximum, so merging is order-independent and adding a
+ * value twice, on one node or two, has no effect.
+ */
+public final class HyperLogLog {
+
+    private static final byte FORMAT = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision Number of index bits, 4 to 18
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public synchronized void add(String value) {
+        long hash = BloomFilter.hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits, capped for an all-zero remainder
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision) + 1, 64 - precision + 1);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public synchronized long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Relative standard error of {@link #estimate()}
+     */
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " and " + precision);
+        }
+        byte[] theirs;
+        synchronized (other) {
+            theirs = other.registers.clone();
+        }
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                if (theirs[i] > registers[i]) {
+                    registers[i] = theirs[i];
+                }
+            }
+        }
+    }
+
+    public synchronized byte[] toBytes() {
+        return ByteBuffer.allocate(2 + registers.length)
+                .put(FORMAT)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT) {
+            throw new IllegalArgumentException("Unknown HyperLogLog format");
+        }
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        buffer.get(sketch.registers);
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
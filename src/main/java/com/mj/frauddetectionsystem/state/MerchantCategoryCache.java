@@ -0,0 +1,149 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.model.MerchantCategory;
+import com.mj.frauddetectionsystem.repository.MerchantCategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory index of merchant categories by code, with categories grouped by risk level.
+ *
+ * Readers see an immutable snapshot through a single volatile read, so lookups need
+ * no lock, transaction or connection. A refresh builds a new snapshot and swaps it in.
+ * Cached categories are detached copies and must be treated as read-only; they are
+ * safe to reference from new transactions because only their id is written.
+ */
+@Component
+public class MerchantCategoryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MerchantCategoryCache.class);
+
+    @Autowired
+    private MerchantCategoryRepository merchantCategoryRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Find a category by code. Codes missing from the snapshot are looked up once in
+     * the database, so categories added since the last refresh are still found.
+     */
+    public Optional<MerchantCategory> findByCode(String categoryCode) {
+        MerchantCategory category = snapshot.byCode.get(categoryCode);
+        if (category != null) {
+            return Optional.of(category);
+        }
+        Optional<MerchantCategory> loaded = merchantCategoryRepository.findByCategoryCode(categoryCode).map(MerchantCategoryCache::copyOf);
+        loaded.ifPresent(this::add);
+        return loaded;
+    }
+
+    /**
+     * Get the cached version of a category, so risk lookups see the latest refresh;
+     * categories not in the snapshot are returned unchanged
+     */
+    public MerchantCategory resolve(MerchantCategory category) {
+        if (category == null || category.getCategoryCode() == null) {
+            return category;
+        }
+        return snapshot.byCode.getOrDefault(category.getCategoryCode(), category);
+    }
+
+    /**
+     * Get all categories at the given risk level
+     */
+    public List<MerchantCategory> getByRiskLevel(MerchantCategory.RiskLevel riskLevel) {
+        return snapshot.byRiskLevel.getOrDefault(riskLevel, List.of());
+    }
+
+    /**
+     * Reload every category and swap in the new snapshot
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${fraud.detection.merchant-categories.refresh-interval-ms:300000}",
+               initialDelayString = "${fraud.detection.merchant-categories.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            List<MerchantCategory> categories = new ArrayList<>();
+            for (MerchantCategory category : merchantCategoryRepository.findAll()) {
+                categories.add(copyOf(category));
+            }
+            snapshot = new Snapshot(categories, LocalDateTime.now());
+            logger.info("Merchant category cache loaded {} categories", categories.size());
+        } catch (Exception e) {
+            logger.warn("Could not refresh merchant category cache, keeping {} cached categories: {}",
+                       snapshot.byCode.size(), e.getMessage());
+        }
+    }
+
+    public int size() {
+        return snapshot.byCode.size();
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return snapshot.loadedAt;
+    }
+
+    /**
+     * Count cached categories per risk level
+     */
+    public Map<MerchantCategory.RiskLevel, Integer> getCountsByRiskLevel() {
+        Map<MerchantCategory.RiskLevel, Integer> counts = new EnumMap<>(MerchantCategory.RiskLevel.class);
+        snapshot.byRiskLevel.forEach((level, categories) -> counts.put(level, categories.size()));
+        return counts;
+    }
+
+    private synchronized void add(MerchantCategory category) {
+        List<MerchantCategory> categories = new ArrayList<>(snapshot.byCode.values());
+        categories.removeIf(existing -> existing.getCategoryCode().equals(category.getCategoryCode()));
+        categories.add(category);
+        snapshot = new Snapshot(categories, snapshot.loadedAt);
+    }
+
+    private static MerchantCategory copyOf(MerchantCategory category) {
+        MerchantCategory copy = new MerchantCategory(category.getCategoryCode(), category.getCategoryName(),
+                                                     category.getRiskLevel());
+        copy.setId(category.getId());
+        copy.setDescription(category.getDescription());
+        return copy;
+    }
+
+    /**
+     * Immutable view of all categories at one point in time
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(List.of(), null);
+
+        private final Map<String, MerchantCategory> byCode;
+        private final Map<MerchantCategory.RiskLevel, List<MerchantCategory>> byRiskLevel;
+        private final LocalDateTime loadedAt;
+
+        private Snapshot(List<MerchantCategory> categories, LocalDateTime loadedAt) {
+            Map<String, MerchantCategory> codes = new HashMap<>();
+            Map<MerchantCategory.RiskLevel, List<MerchantCategory>> levels = new EnumMap<>(MerchantCategory.RiskLevel.class);
+            for (MerchantCategory category : categories) {
+                codes.put(category.getCategoryCode(), category);
+                if (category.getRiskLevel() != null) {
+                    levels.computeIfAbsent(category.getRiskLevel(), level -> new ArrayList<>()).add(category);
+                }
+            }
+            levels.replaceAll((level, list) -> Collections.unmodifiableList(list));
+            this.byCode = Map.copyOf(codes);
+            this.byRiskLevel = Collections.unmodifiableMap(levels);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
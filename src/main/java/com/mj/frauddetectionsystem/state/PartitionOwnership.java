@@ -0,0 +1,120 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks which transaction-events partitions this instance consumes, so per-user
+ * state is only kept for the users routed to them.
+ *
+ * Events are keyed by user ID, so Kafka's key hashing sends all of a user's events to
+ * one partition and therefore to one consumer. On assignment the affected users' state
+ * is restored from the database before their events are polled; on revocation it is
+ * dropped. Offsets are only committed after a batch is stored, so the database holds
+ * everything up to the handoff point and serves as the snapshot between owners.
+ */
+@Component
+public class PartitionOwnership implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionOwnership.class);
+
+    @Autowired
+    private UserVelocityStore velocityStore;
+
+    @Value("${fraud.detection.ingest.kafka.partition-affinity:false}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.ingest.kafka.topic:transaction-events}")
+    private String topic;
+
+    // Partitions of the topic owned by any consumer thread of this instance
+    private final Set<Integer> ownedPartitions = ConcurrentHashMap.newKeySet();
+    private volatile int partitionCount;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            velocityStore.restrictTo(this::owns);
+            logger.info("Partition affinity enabled: per-user state follows {} partition ownership", topic);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the user's events are routed to a partition owned by this instance
+     */
+    public boolean owns(String userId) {
+        int partitions = partitionCount;
+        return userId != null && partitions > 0 && ownedPartitions.contains(partitionFor(userId, partitions));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Set<Integer> assigned = partitionsOfTopic(partitions);
+        if (!enabled || assigned.isEmpty()) {
+            return;
+        }
+        int count = consumer.partitionsFor(topic).size();
+        if (count != partitionCount) {
+            // Users map to different partitions now, so nothing held so far is reliable
+            ownedPartitions.clear();
+            partitionCount = count;
+            velocityStore.release(userId -> true);
+        }
+        velocityStore.restore(userId -> assigned.contains(partitionFor(userId, count)));
+        ownedPartitions.addAll(assigned);
+        logger.info("Took ownership of {} partitions {}", topic, assigned);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        Set<Integer> revoked = partitionsOfTopic(partitions);
+        if (!enabled || revoked.isEmpty()) {
+            return;
+        }
+        ownedPartitions.removeAll(revoked);
+        int count = partitionCount;
+        velocityStore.release(userId -> revoked.contains(partitionFor(userId, count)));
+        logger.info("Released ownership of {} partitions {}", topic, revoked);
+    }
+
+    private Set<Integer> partitionsOfTopic(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+                .filter(partition -> partition.topic().equals(topic))
+                .map(TopicPartition::partition)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Partition of a user ID key, computed the way Kafka's default partitioner places keyed records
+     */
+    public static int partitionFor(String userId, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(userId.getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
@@ -0,0 +1,41 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transaction IDs accepted for storage but not yet committed, such as entries waiting in
+ * the write-behind journal or items of a bulk batch being written.
+ *
+ * Claiming an ID is atomic, so of two concurrent requests with the same ID only one gets
+ * past the duplicate check. An ID is released once it is committed, when the unique
+ * constraint takes over, or when its request fails before being handed over for storage.
+ */
+@Component
+public class PendingTransactionIds {
+
+    private final Set<String> ids = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Claim an ID
+     *
+     * @return false if the ID is already claimed
+     */
+    public boolean claim(String transactionId) {
+        return ids.add(transactionId);
+    }
+
+    public void release(String transactionId) {
+        ids.remove(transactionId);
+    }
+
+    public boolean contains(String transactionId) {
+        return ids.contains(transactionId);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,227 @@
+package com.mj.frauddetectionsystem.state;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest for quantile estimates over a stream of values.
+ *
+ * Values are buffered and periodically merged into a sorted list of weighted centroids.
+ * The arcsine scale function limits each centroid to one unit of k, so centroids are
+ * small near the tails and the digest never holds much more than `compression`
+ * centroids. Digests merge by re-merging each other's centroids, which makes them
+ * suitable for combining per-bucket or per-node digests.
+ */
+public final class TDigest {
+
+    private static final byte FORMAT = 1;
+
+    private final double compression;
+
+    // Centroids sorted by mean
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private double centroidWeight;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression Accuracy parameter; about 100 gives quantile errors well under 1% of rank
+     */
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("Compression must be at least 10");
+        }
+        this.compression = compression;
+        this.bufferMeans = new double[(int) (compression * 5)];
+        this.bufferWeights = new double[bufferMeans.length];
+    }
+
+    public synchronized void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Fold another digest into this one
+     */
+    public void merge(TDigest other) {
+        double[] otherMeans;
+        double[] otherWeights;
+        double otherMin;
+        double otherMax;
+        synchronized (other) {
+            other.compress();
+            otherMeans = other.means.clone();
+            otherWeights = other.weights.clone();
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+        synchronized (this) {
+            for (int i = 0; i < otherMeans.length; i++) {
+                add(otherMeans[i], otherWeights[i]);
+            }
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Estimated value at quantile q, or NaN if the digest is empty
+     */
+    public synchronized double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        compress();
+        int n = means.length;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        if (n == 1) {
+            return means[0];
+        }
+
+        double index = q * centroidWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < n - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (index < cumulative + step) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / step;
+            }
+            cumulative += step;
+        }
+        double tail = weights[n - 1] / 2;
+        return means[n - 1] + (max - means[n - 1]) * Math.min(1, (index - cumulative) / tail);
+    }
+
+    /**
+     * Approximate bound on the rank error of {@link #quantile(double)} at q: half the
+     * largest centroid the scale function allows there
+     */
+    public double rankErrorBound(double q) {
+        return Math.PI * Math.sqrt(q * (1 - q)) / compression;
+    }
+
+    public synchronized long getCount() {
+        return Math.round(centroidWeight + Arrays.stream(bufferWeights, 0, buffered).sum());
+    }
+
+    public synchronized int getCentroidCount() {
+        compress();
+        return means.length;
+    }
+
+    public synchronized byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * Double.BYTES + Integer.BYTES + means.length * 2 * Double.BYTES)
+                .put(FORMAT)
+                .putDouble(compression)
+                .putDouble(min)
+                .putDouble(max)
+                .putInt(means.length);
+        for (int i = 0; i < means.length; i++) {
+            buffer.putDouble(means[i]).putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT) {
+            throw new IllegalArgumentException("Unknown t-digest format");
+        }
+        TDigest digest = new TDigest(buffer.getDouble());
+        digest.min = buffer.getDouble();
+        digest.max = buffer.getDouble();
+        int n = buffer.getInt();
+        digest.means = new double[n];
+        digest.weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = buffer.getDouble();
+            digest.centroidWeight += digest.weights[i];
+        }
+        return digest;
+    }
+
+    private void add(double value, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        int n = means.length + buffered;
+        double[] allMeans = Arrays.copyOf(means, n);
+        double[] allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, allMeans, means.length, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, means.length, buffered);
+        double total = centroidWeight;
+        for (int i = 0; i < buffered; i++) {
+            total += bufferWeights[i];
+        }
+        buffered = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] mergedMeans = new double[n];
+        double[] mergedWeights = new double[n];
+        int count = 0;
+        double soFar = 0;
+        double mean = allMeans[order[0]];
+        double weight = allWeights[order[0]];
+        double limit = quantileLimit(0, total);
+        for (int i = 1; i < n; i++) {
+            double nextMean = allMeans[order[i]];
+            double nextWeight = allWeights[order[i]];
+            if ((soFar + weight + nextWeight) / total <= limit) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                mergedMeans[count] = mean;
+                mergedWeights[count] = weight;
+                count++;
+                soFar += weight;
+                limit = quantileLimit(soFar, total);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        mergedMeans[count] = mean;
+        mergedWeights[count] = weight;
+        count++;
+
+        means = Arrays.copyOf(mergedMeans, count);
+        weights = Arrays.copyOf(mergedWeights, count);
+        centroidWeight = total;
+    }
+
+    // Largest quantile a centroid starting at soFar may reach: one unit of k further on
+    private double quantileLimit(double soFar, double total) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * soFar / total - 1) + 1;
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+}
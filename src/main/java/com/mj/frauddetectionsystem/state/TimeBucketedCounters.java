@@ -0,0 +1,273 @@
+package com.mj.frauddetectionsystem.state;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transaction and fraud totals kept in minute, hour and day buckets.
+ *
+ * Every transaction is added to one bucket of each granularity. Minute buckets are
+ * kept for a limited time, hour buckets for longer, and day buckets indefinitely, so a
+ * range sum reads whole days in the middle and finer buckets only at the edges. Where
+ * the finer buckets have been evicted, an edge is rounded out to the enclosing hour or day.
+ *
+ * Each bucket also remembers how much of it has been checkpointed, so a checkpoint drains
+ * only what was added since the previous one and can be merged into shared storage.
+ */
+public class TimeBucketedCounters {
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    private final Map<Granularity, ConcurrentNavigableMap<LocalDateTime, Bucket>> buckets = Map.of(
+            Granularity.MINUTE, new ConcurrentSkipListMap<>(),
+            Granularity.HOUR, new ConcurrentSkipListMap<>(),
+            Granularity.DAY, new ConcurrentSkipListMap<>());
+
+    private final Duration minuteRetention;
+    private final Duration hourRetention;
+
+    // Minute and hour buckets before these are gone
+    private volatile LocalDateTime minuteHorizon = LocalDateTime.MIN;
+    private volatile LocalDateTime hourHorizon = LocalDateTime.MIN;
+
+    public TimeBucketedCounters(Duration minuteRetention, Duration hourRetention) {
+        this.minuteRetention = minuteRetention;
+        this.hourRetention = hourRetention;
+    }
+
+    /**
+     * Count one transaction
+     */
+    public void record(LocalDateTime timestamp, boolean fraudulent, BigDecimal amount) {
+        long cents = toCents(amount);
+        add(timestamp, 1, fraudulent ? 1 : 0, cents, fraudulent ? cents : 0);
+    }
+
+    /**
+     * Add pre-aggregated totals of transactions that fall in one minute
+     */
+    public void add(LocalDateTime minute, long count, long fraudCount, BigDecimal amount, BigDecimal fraudAmount) {
+        add(minute, count, fraudCount, toCents(amount), toCents(fraudAmount));
+    }
+
+    /**
+     * Restore a checkpointed bucket of a single granularity; it is not marked dirty
+     */
+    public void restore(Granularity granularity, LocalDateTime bucketStart, long count, long fraudCount,
+                        BigDecimal amount, BigDecimal fraudAmount) {
+        Bucket bucket = buckets.get(granularity).computeIfAbsent(granularity.truncate(bucketStart), start -> new Bucket());
+        bucket.add(count, fraudCount, toCents(amount), toCents(fraudAmount));
+        bucket.checkpointed(count, fraudCount, toCents(amount), toCents(fraudAmount));
+    }
+
+    /**
+     * Totals of transactions with a timestamp in [from, to)
+     */
+    public Totals sum(LocalDateTime from, LocalDateTime to) {
+        Totals totals = new Totals();
+        LocalDateTime cursor = from;
+        while (cursor.isBefore(to)) {
+            LocalDateTime day = Granularity.DAY.truncate(cursor);
+            LocalDateTime hour = Granularity.HOUR.truncate(cursor);
+            if ((cursor.equals(day) && !day.plusDays(1).isAfter(to)) || cursor.isBefore(hourHorizon)) {
+                totals.add(buckets.get(Granularity.DAY).get(day));
+                cursor = day.plusDays(1);
+            } else if ((cursor.equals(hour) && !hour.plusHours(1).isAfter(to)) || cursor.isBefore(minuteHorizon)) {
+                totals.add(buckets.get(Granularity.HOUR).get(hour));
+                cursor = hour.plusHours(1);
+            } else {
+                LocalDateTime minute = Granularity.MINUTE.truncate(cursor);
+                totals.add(buckets.get(Granularity.MINUTE).get(minute));
+                cursor = minute.plusMinutes(1);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Totals over every recorded transaction
+     */
+    public Totals total() {
+        Totals totals = new Totals();
+        buckets.get(Granularity.DAY).values().forEach(totals::add);
+        return totals;
+    }
+
+    /**
+     * Buckets changed since the last call, with what was added to them since then.
+     * Not safe to call concurrently with itself or {@link #markDirty}.
+     */
+    public List<BucketSnapshot> drainDirty() {
+        List<BucketSnapshot> dirty = new ArrayList<>();
+        buckets.forEach((granularity, map) -> map.forEach((start, bucket) -> {
+            if (bucket.dirty.compareAndSet(true, false)) {
+                dirty.add(bucket.drain(granularity, start));
+            }
+        }));
+        return dirty;
+    }
+
+    /**
+     * Give drained deltas back to their buckets, e.g. after a failed checkpoint
+     */
+    public void markDirty(List<BucketSnapshot> snapshots) {
+        for (BucketSnapshot snapshot : snapshots) {
+            Bucket bucket = buckets.get(snapshot.granularity).get(snapshot.bucketStart);
+            if (bucket != null) {
+                bucket.checkpointed(-snapshot.count, -snapshot.fraudCount,
+                        -toCents(snapshot.amount), -toCents(snapshot.fraudAmount));
+                bucket.dirty.set(true);
+            }
+        }
+    }
+
+    /**
+     * Drop minute and hour buckets past their retention. Call after checkpointing.
+     */
+    public void evict(LocalDateTime now) {
+        minuteHorizon = Granularity.HOUR.truncate(now.minus(minuteRetention));
+        hourHorizon = Granularity.DAY.truncate(now.minus(hourRetention));
+        buckets.get(Granularity.MINUTE).headMap(minuteHorizon).clear();
+        buckets.get(Granularity.HOUR).headMap(hourHorizon).clear();
+    }
+
+    public LocalDateTime getMinuteHorizon() {
+        return minuteHorizon;
+    }
+
+    public LocalDateTime getHourHorizon() {
+        return hourHorizon;
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void add(LocalDateTime timestamp, long count, long fraudCount, long cents, long fraudCents) {
+        for (Granularity granularity : Granularity.values()) {
+            buckets.get(granularity)
+                    .computeIfAbsent(granularity.truncate(timestamp), start -> new Bucket())
+                    .add(count, fraudCount, cents, fraudCents)
+                    .dirty.set(true);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Bucket {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder fraudCount = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+        private final LongAdder fraudCents = new LongAdder();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        // Part of the sums already checkpointed; touched only by restore, drain and markDirty
+        private long checkpointedCount;
+        private long checkpointedFraudCount;
+        private long checkpointedCents;
+        private long checkpointedFraudCents;
+
+        private Bucket add(long count, long fraudCount, long cents, long fraudCents) {
+            this.count.add(count);
+            this.fraudCount.add(fraudCount);
+            this.cents.add(cents);
+            this.fraudCents.add(fraudCents);
+            return this;
+        }
+
+        private void checkpointed(long count, long fraudCount, long cents, long fraudCents) {
+            checkpointedCount += count;
+            checkpointedFraudCount += fraudCount;
+            checkpointedCents += cents;
+            checkpointedFraudCents += fraudCents;
+        }
+
+        // Adds racing with the reads show up in the next drain
+        private BucketSnapshot drain(Granularity granularity, LocalDateTime start) {
+            long count = this.count.sum() - checkpointedCount;
+            long fraudCount = this.fraudCount.sum() - checkpointedFraudCount;
+            long cents = this.cents.sum() - checkpointedCents;
+            long fraudCents = this.fraudCents.sum() - checkpointedFraudCents;
+            checkpointed(count, fraudCount, cents, fraudCents);
+            return new BucketSnapshot(granularity, start, count, fraudCount,
+                    BigDecimal.valueOf(cents, 2), BigDecimal.valueOf(fraudCents, 2));
+        }
+    }
+
+    /**
+     * Sums over a range of buckets
+     */
+    public static final class Totals {
+        private long count;
+        private long fraudCount;
+        private long cents;
+        private long fraudCents;
+
+        private void add(Bucket bucket) {
+            if (bucket != null) {
+                count += bucket.count.sum();
+                fraudCount += bucket.fraudCount.sum();
+                cents += bucket.cents.sum();
+                fraudCents += bucket.fraudCents.sum();
+            }
+        }
+
+        public long getCount() { return count; }
+        public long getFraudCount() { return fraudCount; }
+        public BigDecimal getAmount() { return BigDecimal.valueOf(cents, 2); }
+        public BigDecimal getFraudAmount() { return BigDecimal.valueOf(fraudCents, 2); }
+    }
+
+    /**
+     * What was added to one bucket between two drains
+     */
+    public static final class BucketSnapshot {
+        private final Granularity granularity;
+        private final LocalDateTime bucketStart;
+        private final long count;
+        private final long fraudCount;
+        private final BigDecimal amount;
+        private final BigDecimal fraudAmount;
+
+        BucketSnapshot(Granularity granularity, LocalDateTime bucketStart, long count, long fraudCount,
+                       BigDecimal amount, BigDecimal fraudAmount) {
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+            this.count = count;
+            this.fraudCount = fraudCount;
+            this.amount = amount;
+            this.fraudAmount = fraudAmount;
+        }
+
+        public Granularity getGranularity() { return granularity; }
+        public LocalDateTime getBucketStart() { return bucketStart; }
+        public long getCount() { return count; }
+        public long getFraudCount() { return fraudCount; }
+        public BigDecimal getAmount() { return amount; }
+        public BigDecimal getFraudAmount() { return fraudAmount; }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mj.frauddetectionsystem.state;
+
+/**
+ * Fixed-capacity ring of epoch-millisecond timestamps kept in ascending order.
+ *
+ * Once full, recording a new timestamp overwrites the oldest one, so counts
+ * saturate at the capacity. Not thread-safe; callers synchronize on the ring.
+ */
+class TimestampRing {
+
+    private final long[] timestamps;
+    private int head;  // index of the oldest entry
+    private int size;
+
+    TimestampRing(int capacity) {
+        this.timestamps = new long[capacity];
+    }
+
+    void record(long timestamp) {
+        int capacity = timestamps.length;
+        if (size == capacity) {
+            if (timestamp <= timestamps[head]) {
+                return; // older than everything we retain
+            }
+            head = (head + 1) % capacity;
+            size--;
+        }
+
+        // Insert in order; out-of-order arrivals are rare, so this is usually a single write
+        int position = size;
+        while (position > 0 && timestamps[(head + position - 1) % capacity] > timestamp) {
+            timestamps[(head + position) % capacity] = timestamps[(head + position - 1) % capacity];
+            position--;
+        }
+        timestamps[(head + position) % capacity] = timestamp;
+        size++;
+    }
+
+    /**
+     * Count timestamps strictly after the cutoff, walking back from the newest entry
+     */
+    int countAfter(long cutoff) {
+        int capacity = timestamps.length;
+        int count = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (timestamps[(head + i) % capacity] <= cutoff) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    long newest() {
+        return size == 0 ? Long.MIN_VALUE : timestamps[(head + size - 1) % timestamps.length];
+    }
+}
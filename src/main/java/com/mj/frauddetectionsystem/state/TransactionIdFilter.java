@@ -0,0 +1,162 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bloom filter of recently seen transaction IDs, used to skip the duplicate lookup
+ * for IDs that are certainly new.
+ *
+ * Two generations rotate: new IDs go into the current generation, lookups check both,
+ * and on rotation the older generation is discarded. An ID is therefore remembered for
+ * at least one rotation period. A negative answer is only as reliable as that window;
+ * the unique constraint on transaction_id stays the final authority for older IDs.
+ * Until the filter has been seeded it answers "maybe" for everything.
+ */
+@Component
+public class TransactionIdFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdFilter.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.duplicate-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.duplicate-filter.expected-ids-per-generation:1000000}")
+    private long expectedIdsPerGeneration;
+
+    @Value("${fraud.detection.duplicate-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${fraud.detection.duplicate-filter.seed-hours:24}")
+    private int seedHours;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile boolean ready;
+
+    private Counter lookups;
+    private Counter filterHits;
+    private Counter falsePositives;
+
+    @PostConstruct
+    public void init() {
+        current = new BloomFilter(expectedIdsPerGeneration, falsePositiveRate);
+        previous = new BloomFilter(1, falsePositiveRate);
+
+        lookups = Counter.builder("fraud.duplicate_filter.lookups")
+                .description("Transaction IDs checked against the duplicate filter").register(meterRegistry);
+        filterHits = Counter.builder("fraud.duplicate_filter.hits")
+                .description("Lookups the filter could not rule out, checked against the database").register(meterRegistry);
+        falsePositives = Counter.builder("fraud.duplicate_filter.false_positives")
+                .description("Filter hits the database showed to be new IDs").register(meterRegistry);
+        Gauge.builder("fraud.duplicate_filter.expected_fpp", this, TransactionIdFilter::getExpectedFalsePositiveRate)
+                .description("Estimated false-positive rate of the current generation").register(meterRegistry);
+        Gauge.builder("fraud.duplicate_filter.memory_bytes", this, TransactionIdFilter::getSizeInBytes)
+                .description("Memory held by the filter generations").register(meterRegistry);
+    }
+
+    /**
+     * Whether the ID may have been seen; false means it is certainly not a recent duplicate
+     */
+    public boolean mightContain(String transactionId) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        lookups.increment();
+        boolean hit = current.mightContain(transactionId) || previous.mightContain(transactionId);
+        if (hit) {
+            filterHits.increment();
+        }
+        return hit;
+    }
+
+    /**
+     * Record that a filter hit turned out to be a new ID
+     */
+    public void recordFalsePositive() {
+        if (enabled && ready) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Remember a committed transaction ID; rotates early if the generation is full
+     */
+    public void put(String transactionId) {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter generation = current;
+        generation.put(transactionId);
+        if (generation.getInsertions() >= expectedIdsPerGeneration) {
+            rotate(generation);
+        }
+    }
+
+    /**
+     * Seed the filter with IDs of recent transactions
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<String> ids = transactionRepository.findTransactionIdsAfter(LocalDateTime.now().minusHours(seedHours));
+            for (String id : ids) {
+                put(id);
+            }
+            ready = true;
+            logger.info("Duplicate transaction filter seeded with {} IDs", ids.size());
+        } catch (Exception e) {
+            logger.warn("Could not seed duplicate transaction filter, every ID will be checked in the database: {}",
+                       e.getMessage());
+        }
+    }
+
+    /**
+     * Start a new generation on schedule so IDs age out of the filter
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.duplicate-filter.rotation-interval-ms:43200000}",
+               initialDelayString = "${fraud.detection.duplicate-filter.rotation-interval-ms:43200000}")
+    public void rotate() {
+        rotate(current);
+    }
+
+    private synchronized void rotate(BloomFilter expected) {
+        if (current != expected) {
+            return; // another thread already rotated this generation
+        }
+        previous = current;
+        current = new BloomFilter(expectedIdsPerGeneration, falsePositiveRate);
+        logger.debug("Duplicate transaction filter rotated after {} IDs", previous.getInsertions());
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return current.expectedFalsePositiveRate();
+    }
+
+    public long getSizeInBytes() {
+        return current.getSizeInBytes() + previous.getSizeInBytes();
+    }
+}
@@ -0,0 +1,227 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.model.UserProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of lightweight user snapshots keyed by external user ID.
+ *
+ * A snapshot holds everything the rules read about the user, so a cached user is
+ * never loaded on the analyze path. Entries are evicted least-recently-used once the
+ * cache is full and expire a fixed time after loading, so a user changed or removed
+ * elsewhere is picked up within the TTL. Profile writes in this service refresh the
+ * user's entry in place once they commit.
+ */
+@Component
+public class UserSnapshotCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fraud.detection.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${fraud.detection.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, UserSnapshot> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long ttlNanos;
+    private Counter hits;
+    private Counter misses;
+    private Counter sizeEvictions;
+    private Counter expirations;
+    private Counter invalidations;
+
+    @PostConstruct
+    public void init() {
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        hits = cacheCounter("hit", "Lookups served from the cache");
+        misses = cacheCounter("miss", "Lookups that had to load the user");
+        sizeEvictions = evictionCounter("size", "Entries evicted because the cache was full");
+        expirations = evictionCounter("expired", "Entries dropped after their TTL");
+        invalidations = evictionCounter("invalidated", "Entries dropped after a profile write rolled back");
+        Gauge.builder("fraud.user.cache.size", this, UserSnapshotCache::size)
+                .description("Users currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the cached snapshot for a user, or null when it is absent or expired
+     */
+    public UserSnapshot get(String userId) {
+        if (!enabled) {
+            return null;
+        }
+        UserSnapshot snapshot;
+        synchronized (entries) {
+            snapshot = entries.get(userId);
+            if (snapshot != null && isExpired(snapshot, System.nanoTime())) {
+                entries.remove(userId);
+                expirations.increment();
+                snapshot = null;
+            }
+        }
+        (snapshot != null ? hits : misses).increment();
+        return snapshot;
+    }
+
+    /**
+     * Snapshot a freshly loaded user and cache it
+     *
+     * @return The snapshot, also when caching is disabled
+     */
+    public UserSnapshot put(User user) {
+        if (user == null || user.getId() == null) {
+            return null;
+        }
+        UserSnapshot snapshot = snapshotOf(user);
+        if (enabled) {
+            store(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replace a user's snapshot after a profile write. Inside a transaction the new
+     * snapshot is only installed once it commits; a rollback drops the entry instead.
+     */
+    public void refresh(User user) {
+        if (!enabled || user == null || user.getId() == null) {
+            return;
+        }
+        UserSnapshot snapshot = snapshotOf(user);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            store(snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    store(snapshot);
+                } else {
+                    remove(snapshot.userId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop a user's snapshot now and, when called inside a transaction, again after it
+     * commits so a concurrent lookup cannot re-cache the pre-commit state
+     */
+    public void invalidate(String userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(userId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private UserSnapshot snapshotOf(User user) {
+        UserProfile profile = user.getProfile();
+        BigDecimal averageAmount = profile != null ? profile.getAmountStatistics().getAverage() : null;
+        return new UserSnapshot(user.getId(), user.getUserId(), averageAmount, System.nanoTime());
+    }
+
+    private void store(UserSnapshot snapshot) {
+        synchronized (entries) {
+            entries.put(snapshot.userId, snapshot);
+            evictOverflow(snapshot.loadedAtNanos);
+        }
+    }
+
+    private void remove(String userId) {
+        synchronized (entries) {
+            if (entries.remove(userId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void evictOverflow(long nowNanos) {
+        Iterator<UserSnapshot> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            UserSnapshot snapshot = eldest.next();
+            eldest.remove();
+            (isExpired(snapshot, nowNanos) ? expirations : sizeEvictions).increment();
+        }
+    }
+
+    private boolean isExpired(UserSnapshot snapshot, long nowNanos) {
+        return nowNanos - snapshot.loadedAtNanos > ttlNanos;
+    }
+
+    private Counter cacheCounter(String result, String description) {
+        return Counter.builder("fraud.user.cache.requests")
+                .description(description)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter evictionCounter(String cause, String description) {
+        return Counter.builder("fraud.user.cache.evictions")
+                .description(description)
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Immutable view of the user fields needed on the analyze path
+     */
+    public static final class UserSnapshot {
+        private final Long id;
+        private final String userId;
+        private final BigDecimal averageAmount;
+        private final long loadedAtNanos;
+
+        private UserSnapshot(Long id, String userId, BigDecimal averageAmount, long loadedAtNanos) {
+            this.id = id;
+            this.userId = userId;
+            this.averageAmount = averageAmount;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        public Long getId() { return id; }
+        public String getUserId() { return userId; }
+
+        /**
+         * Mean of the profile's recorded amounts, or null when none are recorded yet
+         */
+        public BigDecimal getAverageAmount() { return averageAmount; }
+    }
+}
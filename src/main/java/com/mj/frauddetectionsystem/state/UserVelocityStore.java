@@ -0,0 +1,204 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory per-user record of recent transaction timestamps.
+ *
+ * Answers "how many transactions did this user make in the last N minutes" without
+ * touching the database. Each user holds a bounded ring of timestamps; users with no
+ * activity inside the retention window are evicted periodically. The store is rebuilt
+ * from the database at startup and reports itself ready only once that completes, so
+ * callers should fall back to a query until then.
+ *
+ * The store only sees transactions processed by this instance. With partition
+ * affinity it is restricted to the users whose ingest partitions this instance owns:
+ * their history is loaded when a partition is assigned and dropped when it is revoked,
+ * and counts for other users are left to the database.
+ */
+@Component
+public class UserVelocityStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserVelocityStore.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${fraud.detection.velocity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fraud.detection.velocity.capacity-per-user:32}")
+    private int capacityPerUser;
+
+    @Value("${fraud.detection.velocity.retention-minutes:60}")
+    private int retentionMinutes;
+
+    // Keyed by external user ID, which is also the ingest partitioning key
+    private final ConcurrentMap<String, TimestampRing> rings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // Users this instance keeps state for; null means all users
+    private volatile Predicate<String> ownedUsers;
+
+    /**
+     * Whether counts for the user can be served from memory
+     */
+    public boolean isReadyFor(String userId) {
+        return enabled && ready && userId != null && owns(userId);
+    }
+
+    /**
+     * Record a committed transaction
+     */
+    public void record(Transaction transaction) {
+        if (!enabled || transaction.getUser() == null || transaction.getUser().getUserId() == null) {
+            return;
+        }
+        record(transaction.getUser().getUserId(), transaction.getTimestamp());
+    }
+
+    /**
+     * Record a committed transaction of the given user
+     */
+    public void record(String userId, LocalDateTime timestamp) {
+        if (!enabled || !owns(userId)) {
+            return;
+        }
+        long epochMillis = toEpochMillis(timestamp);
+        rings.compute(userId, (id, ring) -> {
+            TimestampRing target = ring != null ? ring : new TimestampRing(capacityPerUser);
+            synchronized (target) {
+                target.record(epochMillis);
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Count the user's transactions strictly after the cutoff
+     */
+    public int countAfter(String userId, LocalDateTime cutoff) {
+        TimestampRing ring = rings.get(userId);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            return ring.countAfter(toEpochMillis(cutoff));
+        }
+    }
+
+    /**
+     * Rebuild the store from transactions inside the retention window
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        if (ownedUsers != null) {
+            ready = true; // Owned users are loaded as their partitions are assigned
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+            List<Object[]> rows = transactionRepository.findUserTimestampsAfter(cutoff);
+            rings.clear();
+            for (Object[] row : rows) {
+                record((String) row[0], (LocalDateTime) row[1]);
+            }
+            ready = true;
+            logger.info("Velocity store rebuilt with {} transactions for {} users", rows.size(), rings.size());
+        } catch (Exception e) {
+            logger.warn("Could not rebuild velocity store, frequency checks will query the database: {}",
+                       e.getMessage());
+        }
+    }
+
+    /**
+     * Keep state only for users matching the predicate, from now on. Their history is
+     * not loaded here; call {@link #restore} as users become owned.
+     */
+    public void restrictTo(Predicate<String> owned) {
+        ownedUsers = owned;
+        rings.keySet().removeIf(userId -> !owned.test(userId));
+    }
+
+    /**
+     * Load the recent history of the given users, replacing whatever is held for them
+     */
+    public void restore(Predicate<String> users) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        rings.keySet().removeIf(users);
+        int restored = 0;
+        for (Object[] row : transactionRepository.findUserTimestampsAfter(cutoff)) {
+            String userId = (String) row[0];
+            if (users.test(userId)) {
+                record(userId, (LocalDateTime) row[1]);
+                restored++;
+            }
+        }
+        logger.info("Velocity store restored {} transactions for newly owned users", restored);
+    }
+
+    /**
+     * Drop all state held for the given users
+     */
+    public void release(Predicate<String> users) {
+        rings.keySet().removeIf(users);
+    }
+
+    /**
+     * Drop users with no transactions inside the retention window
+     */
+    @Scheduled(fixedDelayString = "${fraud.detection.velocity.eviction-interval-ms:60000}")
+    public void evictIdleUsers() {
+        long cutoff = toEpochMillis(LocalDateTime.now().minusMinutes(retentionMinutes));
+        int evicted = 0;
+        for (String userId : rings.keySet()) {
+            // computeIfPresent serializes with record(), so a concurrent write is never lost
+            TimestampRing remaining = rings.computeIfPresent(userId, (id, ring) -> {
+                synchronized (ring) {
+                    return ring.newest() <= cutoff ? null : ring;
+                }
+            });
+            if (remaining == null) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle users from velocity store", evicted);
+        }
+    }
+
+    public int getTrackedUserCount() {
+        return rings.size();
+    }
+
+    private boolean owns(String userId) {
+        Predicate<String> owned = ownedUsers;
+        return owned == null || owned.test(userId);
+    }
+
+    private static long toEpochMillis(LocalDateTime timestamp) {
+        // Timestamps are stored zone-less; UTC is only used as a fixed encoding
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -279,6 +279,22 @@ INSERT INTO transactions (transaction_id, user_id, amount, merchant_category_id,
 ('TXN076', 15, 425.00, 19, 'State Farm', 'Washington DC, USA', NOW() - INTERVAL 2 HOUR, 'BANK_TRANSFER', FALSE, 0.00, 'APPROVED', 'Auto insurance payment'),
 ('TXN077', 20, 1250.00, 2, 'Apple Store', 'San Francisco, USA', NOW() - INTERVAL 1 HOUR, 'DIGITAL_WALLET', FALSE, 0.00, 'APPROVED', 'iPhone 15 Pro');
 
+-- ============================================
+-- ID GENERATORS: continue after the seeded rows
+-- ============================================
+INSERT INTO id_generators (entity, next_val)
+SELECT 'users', COALESCE(MAX(id), 0) + 1 FROM users
+UNION ALL
+SELECT 'transactions', COALESCE(MAX(id), 0) + 1 FROM transactions
+UNION ALL
+SELECT 'fraud_alerts', COALESCE(MAX(id), 0) + 1 FROM fraud_alerts
+UNION ALL
+SELECT 'alert_outbox', COALESCE(MAX(id), 0) + 1 FROM alert_outbox
+UNION ALL
+SELECT 'fraud_blocks', COALESCE(MAX(id), 0) + 1 FROM fraud_blocks
+UNION ALL
+SELECT 'smart_contracts', COALESCE(MAX(id), 0) + 1 FROM smart_contracts;
+
 -- ============================================
 -- VERIFICATION QUERIES
 -- ============================================
@@ -1,5 +1,6 @@
 
 -- Drop existing tables if they exist
+DROP TABLE IF EXISTS alert_outbox;
 DROP TABLE IF EXISTS fraud_alerts;
 DROP TABLE IF EXISTS fraud_blocks;
 DROP TABLE IF EXISTS smart_contracts;
@@ -7,6 +8,13 @@ DROP TABLE IF EXISTS transactions;
 DROP TABLE IF EXISTS user_profiles;
 DROP TABLE IF EXISTS merchant_categories;
 DROP TABLE IF EXISTS users;
+DROP TABLE IF EXISTS id_generators;
+DROP TABLE IF EXISTS fraud_stats_rollup;
+DROP TABLE IF EXISTS transaction_rollup_hourly;
+DROP TABLE IF EXISTS transaction_rollup_daily;
+DROP TABLE IF EXISTS rollup_watermarks;
+DROP TABLE IF EXISTS fraud_sketch_buckets;
+DROP TABLE IF EXISTS seed_markers;
 
 -- ============================================
 -- Table 1: users
@@ -38,6 +46,17 @@ CREATE TABLE user_profiles (
     risk_score DECIMAL(5, 2) DEFAULT 0.00,
     occupation VARCHAR(255),
     income_range VARCHAR(255),
+    amount_count BIGINT NOT NULL DEFAULT 0,
+    amount_sum DECIMAL(19, 2) NOT NULL DEFAULT 0.00,
+    amount_mean DOUBLE NOT NULL DEFAULT 0,
+    amount_m2 DOUBLE NOT NULL DEFAULT 0,
+    amount_min DECIMAL(12, 2),
+    amount_max DECIMAL(12, 2),
+    fraud_weight DOUBLE NOT NULL DEFAULT 0,
+    activity_weight DOUBLE NOT NULL DEFAULT 0,
+    fraud_ratio_decayed_at BIGINT NOT NULL DEFAULT 0,
+    location_sketch VARCHAR(2000),
+    payment_method_sketch VARCHAR(500),
     
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -77,6 +96,7 @@ CREATE TABLE transactions (
     FOREIGN KEY (merchant_category_id) REFERENCES merchant_categories(id),
     
     INDEX idx_user_timestamp (user_id, timestamp),
+    INDEX idx_timestamp (timestamp),
     INDEX idx_transaction_id (transaction_id),
     INDEX idx_amount (amount),
     INDEX idx_is_fraudulent (is_fraudulent)
@@ -150,4 +170,91 @@ CREATE TABLE smart_contracts (
     INDEX idx_contract_id (contract_id),
     INDEX idx_is_active (is_active),
     INDEX idx_action_type (action_type)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 8: alert_outbox
+-- ============================================
+CREATE TABLE alert_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    transaction_id VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    claimed_until TIMESTAMP NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 9: id_generators (pooled ID blocks for TABLE-generated entities)
+-- ============================================
+CREATE TABLE id_generators (
+    entity VARCHAR(64) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 10: fraud_stats_rollup (checkpointed minute/hour/day totals)
+-- ============================================
+CREATE TABLE fraud_stats_rollup (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    total_count BIGINT NOT NULL,
+    fraud_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19, 2) NOT NULL,
+    fraud_amount_sum DECIMAL(19, 2) NOT NULL,
+    updated_at DATETIME NOT NULL,
+
+    PRIMARY KEY (granularity, bucket_start),
+    INDEX idx_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 11: transaction_rollup_hourly (hourly totals by merchant category and alert severity)
+-- ============================================
+CREATE TABLE transaction_rollup_hourly (
+    bucket_start DATETIME NOT NULL,
+    merchant_category_id BIGINT NOT NULL,
+    severity VARCHAR(20) NOT NULL,
+    total_count BIGINT NOT NULL,
+    fraud_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19, 2) NOT NULL,
+    fraud_amount_sum DECIMAL(19, 2) NOT NULL,
+
+    PRIMARY KEY (bucket_start, merchant_category_id, severity)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 12: transaction_rollup_daily (daily totals, folded from the hourly rollup)
+-- ============================================
+CREATE TABLE transaction_rollup_daily (
+    bucket_start DATETIME NOT NULL,
+    merchant_category_id BIGINT NOT NULL,
+    severity VARCHAR(20) NOT NULL,
+    total_count BIGINT NOT NULL,
+    fraud_count BIGINT NOT NULL,
+    amount_sum DECIMAL(19, 2) NOT NULL,
+    fraud_amount_sum DECIMAL(19, 2) NOT NULL,
+
+    PRIMARY KEY (bucket_start, merchant_category_id, severity)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 13: rollup_watermarks (rollups are complete before rolled_up_to)
+-- ============================================
+CREATE TABLE rollup_watermarks (
+    name VARCHAR(32) PRIMARY KEY,
+    rolled_up_to DATETIME NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 14: fraud_sketch_buckets (HyperLogLog and t-digest sketches of fraud per hour/day)
+-- ============================================
+CREATE TABLE fraud_sketch_buckets (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    users BLOB NOT NULL,
+    merchants BLOB NOT NULL,
+    amounts MEDIUMBLOB NOT NULL,
+    updated_at DATETIME NOT NULL,
+
+    PRIMARY KEY (granularity, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+-- ============================================
+-- Table 15: seed_markers (shared tables seeded once, by whichever node got here first)
+-- ============================================
+CREATE TABLE seed_markers (
+    name VARCHAR(64) PRIMARY KEY,
+    seeded_at DATETIME NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,108 @@
+package com.mj.frauddetectionsystem.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares inserting transactions one row at a time with AUTO_INCREMENT keys read back
+ * per row against batched inserts with ids taken from a preallocated block, the way
+ * the pooled table generator hands them out.
+ *
+ * Only runs against a scratch MySQL schema, e.g.
+ * mvn test -Dtest=IdGenerationBenchmark -Dbenchmark.jdbc.url="jdbc:mysql://localhost:3306/bench?rewriteBatchedStatements=true"
+ *          -Dbenchmark.jdbc.user=root -Dbenchmark.jdbc.password=...
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+public class IdGenerationBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Test
+    public void testInsert_IdentityVersusPooledBatch() throws Exception {
+        try (Connection connection = DriverManager.getConnection(System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.user", "root"), System.getProperty("benchmark.jdbc.password", ""))) {
+            connection.setAutoCommit(false);
+
+            recreateTable(connection);
+            long identityNanos = insertWithIdentity(connection);
+            assertEquals(ROWS, countRows(connection));
+
+            recreateTable(connection);
+            long pooledNanos = insertWithPooledIds(connection);
+            assertEquals(ROWS, countRows(connection));
+
+            System.out.printf("IDENTITY, row by row: %d ms (%.0f rows/s)%n",
+                    identityNanos / 1_000_000, ROWS / (identityNanos / 1e9));
+            System.out.printf("Pooled ids, batches of %d: %d ms (%.0f rows/s)%n",
+                    BATCH_SIZE, pooledNanos / 1_000_000, ROWS / (pooledNanos / 1e9));
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS bench_transactions");
+            }
+            connection.commit();
+        }
+    }
+
+    private long insertWithIdentity(Connection connection) throws Exception {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_transactions (transaction_id, amount) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                ps.setString(1, "TXN" + i);
+                ps.setLong(2, i);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    assertTrue(keys.next());
+                }
+            }
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    private long insertWithPooledIds(Connection connection) throws Exception {
+        long start = System.nanoTime();
+        long nextId = 1;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO bench_transactions (id, transaction_id, amount) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                ps.setLong(1, nextId++);
+                ps.setString(2, "TXN" + i);
+                ps.setLong(3, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    private void recreateTable(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_transactions");
+            statement.execute("CREATE TABLE bench_transactions (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "transaction_id VARCHAR(255) NOT NULL UNIQUE, amount BIGINT NOT NULL) ENGINE=InnoDB");
+        }
+        connection.commit();
+    }
+
+    private int countRows(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM bench_transactions")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
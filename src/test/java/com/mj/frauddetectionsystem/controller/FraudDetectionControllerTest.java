@@ -2,7 +2,9 @@ package com.mj.frauddetectionsystem.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mj.frauddetectionsystem.dto.FraudDetectionResponse;
 import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import com.mj.frauddetectionsystem.service.BulkTransactionService;
 import com.mj.frauddetectionsystem.service.FraudDetectionService;
+import com.mj.frauddetectionsystem.service.TransactionEventPublisher;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -13,13 +15,18 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(FraudDetectionController.class)
+@WebMvcTest(controllers = FraudDetectionController.class,
+        properties = "fraud.detection.ingest.kafka.publish-timeout-ms=100")
 public class FraudDetectionControllerTest {
 
     @Autowired
@@ -28,6 +35,12 @@ public class FraudDetectionControllerTest {
     @MockBean
     private FraudDetectionService fraudDetectionService;
 
+    @MockBean
+    private BulkTransactionService bulkTransactionService;
+
+    @MockBean
+    private TransactionEventPublisher transactionEventPublisher;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -46,10 +59,11 @@ public class FraudDetectionControllerTest {
         // Act & Assert
         mockMvc.perform(post("/fraud-detection/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+                .content(objectMapper.writeValueAsString(request))
+                .with(csrf()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.transactionId").value("TEST001"))
-                .andExpect(jsonPath("$.isFraudulent").value(false));
+                .andExpect(jsonPath("$.fraudulent").value(false));
     }
 
     @Test
@@ -67,20 +81,47 @@ public class FraudDetectionControllerTest {
         // Act & Assert
         mockMvc.perform(post("/fraud-detection/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+                .content(objectMapper.writeValueAsString(request))
+                .with(csrf()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.transactionId").value("FRAUD001"))
-                .andExpect(jsonPath("$.isFraudulent").value(true))
+                .andExpect(jsonPath("$.fraudulent").value(true))
                 .andExpect(jsonPath("$.confidenceScore").value(0.85));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testBatchAnalyze_ValidRequests_ReturnsResultsInOrder() throws Exception {
+        // Arrange
+        TransactionRequest first = createValidTransactionRequest();
+        TransactionRequest second = createHighAmountTransactionRequest();
+        List<FraudDetectionResponse> responses = Arrays.asList(
+            new FraudDetectionResponse("TEST001", false, BigDecimal.ZERO, Arrays.asList()),
+            new FraudDetectionResponse("FRAUD001", true, new BigDecimal("0.85"), Arrays.asList("Amount-Based Rule"))
+        );
+
+        when(bulkTransactionService.analyzeBulk(anyList()))
+            .thenReturn(responses);
+
+        // Act & Assert
+        mockMvc.perform(post("/fraud-detection/batch-analyze")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(first, second)))
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].transactionId").value("TEST001"))
+                .andExpect(jsonPath("$[1].transactionId").value("FRAUD001"))
+                .andExpect(jsonPath("$[1].fraudulent").value(true));
+    }
+
     @Test
     public void testAnalyzeTransaction_Unauthorized_Returns401() throws Exception {
         TransactionRequest request = createValidTransactionRequest();
         
         mockMvc.perform(post("/fraud-detection/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+                .content(objectMapper.writeValueAsString(request))
+                .with(csrf()))
                 .andExpect(status().isUnauthorized());
     }
 
@@ -92,10 +133,51 @@ public class FraudDetectionControllerTest {
         
         mockMvc.perform(post("/fraud-detection/analyze")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(objectMapper.writeValueAsString(request)))
+                .content(objectMapper.writeValueAsString(request))
+                .with(csrf()))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testSubmitTransactionEvent_BrokerAcknowledges_Returns202() throws Exception {
+        when(transactionEventPublisher.publish(any(TransactionRequest.class)))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        mockMvc.perform(post("/fraud-detection/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidTransactionRequest()))
+                .with(csrf()))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testSubmitTransactionEvent_BrokerTimesOut_Returns503() throws Exception {
+        // Never completes, so the request waits only for the configured timeout
+        when(transactionEventPublisher.publish(any(TransactionRequest.class)))
+            .thenReturn(new CompletableFuture<>());
+
+        mockMvc.perform(post("/fraud-detection/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidTransactionRequest()))
+                .with(csrf()))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testSubmitTransactionEvent_BrokerFails_Returns503() throws Exception {
+        when(transactionEventPublisher.publish(any(TransactionRequest.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        mockMvc.perform(post("/fraud-detection/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createValidTransactionRequest()))
+                .with(csrf()))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     private TransactionRequest createValidTransactionRequest() {
         TransactionRequest request = new TransactionRequest();
         request.setTransactionId("TEST001");
@@ -0,0 +1,115 @@
+package com.mj.frauddetectionsystem.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecover_ReturnsUnreleasedRecordsInOrder() throws Exception {
+        TransactionJournal journal = new TransactionJournal(directory, 4096);
+        assertTrue(journal.recover().isEmpty());
+        for (int i = 1; i <= 5; i++) {
+            long sequence = journal.append(("TXN" + i).getBytes(StandardCharsets.UTF_8));
+            journal.awaitDurable(sequence, 1000);
+        }
+        journal.release(2);
+        journal.close();
+
+        TransactionJournal reopened = new TransactionJournal(directory, 4096);
+        List<TransactionJournal.Record> records = reopened.recover();
+        // Releasing part of a segment keeps the whole segment
+        assertEquals(5, records.size());
+        assertEquals(1, records.get(0).getSequence());
+        assertEquals("TXN5", new String(records.get(4).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(6, reopened.append(new byte[] {1}));
+        reopened.close();
+    }
+
+    @Test
+    public void testRelease_DeletesFullyReleasedSegments() throws Exception {
+        TransactionJournal journal = new TransactionJournal(directory, 64);
+        journal.recover();
+        long last = 0;
+        for (int i = 0; i < 10; i++) {
+            last = journal.append(new byte[40]);
+        }
+        journal.awaitDurable(last, 1000);
+        assertEquals(10, journal.getSegmentCount());
+
+        journal.release(last);
+        // The segment being appended to is never deleted
+        assertEquals(1, journal.getSegmentCount());
+        journal.close();
+
+        TransactionJournal reopened = new TransactionJournal(directory, 64);
+        assertTrue(reopened.recover().isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    public void testAwaitDurable_ConcurrentAppendersAllSynced() throws Exception {
+        TransactionJournal journal = new TransactionJournal(directory, 1 << 20);
+        journal.recover();
+        Thread[] writers = new Thread[8];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        journal.awaitDurable(journal.append(new byte[100]), 5000);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(800, journal.getSyncedSequence());
+        journal.close();
+
+        TransactionJournal reopened = new TransactionJournal(directory, 1 << 20);
+        assertEquals(800, reopened.recover().size());
+        reopened.close();
+    }
+
+    @Test
+    public void testRecover_StopsAtCorruptRecord() throws Exception {
+        TransactionJournal journal = new TransactionJournal(directory, 4096);
+        journal.recover();
+        journal.append("first".getBytes(StandardCharsets.UTF_8));
+        journal.append("second".getBytes(StandardCharsets.UTF_8));
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        // Flip a payload byte of the second record
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long offset = TransactionJournal.HEADER_SIZE + "first".length() + TransactionJournal.HEADER_SIZE;
+            file.seek(offset);
+            file.write('S');
+        }
+
+        TransactionJournal reopened = new TransactionJournal(directory, 4096);
+        List<TransactionJournal.Record> records = reopened.recover();
+        assertEquals(1, records.size());
+        assertEquals("first", new String(records.get(0).getPayload(), StandardCharsets.UTF_8));
+        reopened.close();
+    }
+}
@@ -0,0 +1,78 @@
+package com.mj.frauddetectionsystem.listener;
+
+import com.mj.frauddetectionsystem.dto.FraudDetectionResponse;
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import com.mj.frauddetectionsystem.service.BulkTransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TransactionEventListenerTest {
+
+    private BulkTransactionService bulkTransactionService;
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionEventListener listener;
+
+    @BeforeEach
+    public void setUp() {
+        bulkTransactionService = mock(BulkTransactionService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new TransactionEventListener();
+        ReflectionTestUtils.setField(listener, "bulkTransactionService", bulkTransactionService);
+        ReflectionTestUtils.setField(listener, "meterRegistry", meterRegistry);
+        listener.init();
+    }
+
+    @Test
+    public void testConsume_PassesUserBurstInOffsetOrderThenAcknowledges() {
+        List<ConsumerRecord<String, TransactionRequest>> records = new ArrayList<>();
+        for (int offset = 0; offset < 5; offset++) {
+            records.add(new ConsumerRecord<>("transaction-events", 0, offset, "user001", request("CARD" + offset)));
+        }
+        records.add(new ConsumerRecord<>("transaction-events", 0, 5, "user001", null));
+        when(bulkTransactionService.analyzeBulk(anyList())).thenAnswer(invocation -> {
+            List<TransactionRequest> requests = invocation.getArgument(0);
+            return requests.stream()
+                .map(r -> new FraudDetectionResponse(r.getTransactionId(), false, BigDecimal.ZERO, List.of()))
+                .toList();
+        });
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        listener.consume(records, acknowledgment);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> captor = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(bulkTransactionService, acknowledgment);
+        order.verify(bulkTransactionService).analyzeBulk(captor.capture());
+        order.verify(acknowledgment).acknowledge();
+        assertEquals(List.of("CARD0", "CARD1", "CARD2", "CARD3", "CARD4"),
+                     captor.getValue().stream().map(TransactionRequest::getTransactionId).toList());
+        assertEquals(5.0, meterRegistry.get("fraud.ingest.records").tag("outcome", "processed").counter().count());
+        assertEquals(1.0, meterRegistry.get("fraud.ingest.records").tag("outcome", "malformed").counter().count());
+    }
+
+    private TransactionRequest request(String transactionId) {
+        TransactionRequest request = new TransactionRequest();
+        request.setTransactionId(transactionId);
+        request.setUserId("user001");
+        request.setAmount(new BigDecimal("1.00"));
+        request.setMerchantCategoryCode("GRO");
+        request.setMerchantName("Test Store");
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mj.frauddetectionsystem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountStatisticsTest {
+
+    @Test
+    public void testRecord_TracksCountSumMinAndMax() {
+        AmountStatistics statistics = new AmountStatistics();
+        assertTrue(statistics.isEmpty());
+        assertNull(statistics.getAverage());
+
+        statistics.record(new BigDecimal("20.00"));
+        statistics.record(new BigDecimal("5.50"));
+        statistics.record(null);
+        statistics.record(new BigDecimal("34.50"));
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(new BigDecimal("60.00"), statistics.getSum());
+        assertEquals(new BigDecimal("5.50"), statistics.getMin());
+        assertEquals(new BigDecimal("34.50"), statistics.getMax());
+        assertEquals(new BigDecimal("20.00"), statistics.getAverage());
+    }
+
+    @Test
+    public void testGetVariance_MatchesTwoPassVariance() {
+        double[] amounts = {12.5, 99.99, 100.01, 5000, 0.01, 250};
+        AmountStatistics statistics = new AmountStatistics();
+        double sum = 0;
+        for (double amount : amounts) {
+            statistics.record(BigDecimal.valueOf(amount));
+            sum += amount;
+        }
+        double mean = sum / amounts.length;
+        double squares = 0;
+        for (double amount : amounts) {
+            squares += (amount - mean) * (amount - mean);
+        }
+
+        assertEquals(mean, statistics.getMean(), 1e-9);
+        assertEquals(squares / (amounts.length - 1), statistics.getVariance(), 1e-6);
+        assertEquals(Math.sqrt(squares / (amounts.length - 1)), statistics.getStandardDeviation(), 1e-9);
+    }
+
+    @Test
+    public void testGetVariance_ZeroBelowTwoAmounts() {
+        AmountStatistics statistics = new AmountStatistics();
+        assertEquals(0.0, statistics.getVariance());
+        statistics.record(new BigDecimal("42.00"));
+        assertEquals(0.0, statistics.getVariance());
+    }
+
+    @Test
+    public void testSeed_ThenRecordContinuesFromAggregates() {
+        AmountStatistics statistics = new AmountStatistics();
+        // 10, 20 and 30: squared deviations from the mean sum to 200
+        statistics.seed(3, new BigDecimal("60.00"), 200, new BigDecimal("10.00"), new BigDecimal("30.00"));
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(20.0, statistics.getMean(), 1e-9);
+        assertEquals(100.0, statistics.getVariance(), 1e-9);
+
+        statistics.record(new BigDecimal("40.00"));
+        assertEquals(25.0, statistics.getMean(), 1e-9);
+        // 10, 20, 30 and 40: sample variance 166.67
+        assertEquals(500.0 / 3, statistics.getVariance(), 1e-9);
+        assertEquals(new BigDecimal("10.00"), statistics.getMin());
+        assertEquals(new BigDecimal("40.00"), statistics.getMax());
+    }
+
+    @Test
+    public void testSeed_KeepsSmallVarianceOfLargeAmounts() {
+        AmountStatistics statistics = new AmountStatistics();
+        // 1e9 + 0.01, 1e9 + 0.02 and 1e9 + 0.03: a sum of squares near 3e18 would lose the spread
+        statistics.seed(3, new BigDecimal("3000000000.06"), 0.0002, new BigDecimal("1000000000.01"),
+                new BigDecimal("1000000000.03"));
+
+        assertEquals(0.0001, statistics.getVariance(), 1e-12);
+    }
+
+    @Test
+    public void testSeed_EmptyHistoryResets() {
+        AmountStatistics statistics = new AmountStatistics();
+        statistics.record(new BigDecimal("15.00"));
+        statistics.seed(0, null, 0, null, null);
+
+        assertTrue(statistics.isEmpty());
+        assertEquals(BigDecimal.ZERO, statistics.getSum());
+        assertEquals(0.0, statistics.getMean());
+        assertNull(statistics.getMin());
+    }
+}
@@ -0,0 +1,57 @@
+package com.mj.frauddetectionsystem.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHitterSketchTest {
+
+    private static final double DAY = 86_400.0;
+
+    @Test
+    public void testTop_OrdersByWeight() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(4);
+        sketch.add("Boston", 0, 10 * DAY);
+        sketch.add("Denver", 0, 10 * DAY);
+        sketch.add("Denver", 0, 10 * DAY);
+
+        assertEquals(List.of("Denver", "Boston"), sketch.top(5));
+    }
+
+    @Test
+    public void testAdd_FullSketchReplacesLightestEntry() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(2);
+        sketch.add("A", 0, 10 * DAY);
+        sketch.add("A", 0, 10 * DAY);
+        sketch.add("B", 0, 10 * DAY);
+        sketch.add("C", 0, 10 * DAY);
+
+        assertEquals(List.of("A", "C"), sketch.top(2));
+    }
+
+    @Test
+    public void testAdd_OldActivityDecays() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(4);
+        for (int i = 0; i < 4; i++) {
+            sketch.add("Old Town", 0, 10 * DAY);
+        }
+        long sixtyDaysLater = (long) (60 * DAY);
+        sketch.add("New City", sixtyDaysLater, 10 * DAY);
+
+        assertEquals("New City", sketch.top(1).get(0));
+    }
+
+    @Test
+    public void testEncode_RoundTripsEscapedKeys() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(4);
+        sketch.add("New York; NY", 100, 10 * DAY);
+        sketch.add("a=b%c", 100, 10 * DAY);
+        sketch.add("a=b%c", 100, 10 * DAY);
+
+        HeavyHitterSketch decoded = HeavyHitterSketch.parse(sketch.encode(500), 4);
+
+        assertEquals(List.of("a=b%c", "New York; NY"), decoded.top(2));
+    }
+}
@@ -0,0 +1,52 @@
+package com.mj.frauddetectionsystem.repository;
+
+import com.mj.frauddetectionsystem.model.AmountStatistics;
+import com.mj.frauddetectionsystem.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads users and profiles created by schema.sql and data.sql from a MySQL container
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class UserRepositoryTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void testFindWithProfileByUserIdIn_LoadsSeededProfiles() {
+        List<User> users = userRepository.findWithProfileByUserIdIn(List.of("user001", "user005"));
+
+        assertEquals(2, users.size());
+        for (User user : users) {
+            assertNotNull(user.getProfile());
+            AmountStatistics statistics = user.getProfile().getAmountStatistics();
+            assertEquals(0.0, statistics.getMean());
+            assertEquals(0.0, statistics.getVariance());
+        }
+    }
+}
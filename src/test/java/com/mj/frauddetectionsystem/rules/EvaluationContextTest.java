@@ -0,0 +1,59 @@
+package com.mj.frauddetectionsystem.rules;
+
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EvaluationContextTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Test
+    public void testGetRecentTransactions_CountsPrecedingBatchItems() {
+        TransactionRepository repository = mock(TransactionRepository.class);
+        when(repository.findUserTransactionsAfter(any(), any()))
+            .thenReturn(List.of(transaction("Coffee Shop", NOW.minusMinutes(20))));
+        List<Transaction> preceding = List.of(
+            transaction("Gift Cards Online", NOW.minusMinutes(90)),
+            transaction("Gift Cards Online", NOW.minusMinutes(2)),
+            transaction("Gift Cards Online", NOW.minusMinutes(1)));
+
+        EvaluationContext context = new EvaluationContext(transaction("Gift Cards Online", NOW), repository, 60,
+                                                          null, preceding);
+
+        assertEquals(3, context.countRecentTransactions(60));
+        assertEquals(2, context.countRecentTransactions(10));
+        assertEquals(2, context.countRecentTransactionsAtMerchant("Gift Cards Online", 60));
+        assertEquals(2, context.countPrecedingTransactions(60));
+        verify(repository, times(1)).findUserTransactionsAfter(any(), any());
+    }
+
+    @Test
+    public void testCountPrecedingTransactions_NoneOutsideBatch() {
+        TransactionRepository repository = mock(TransactionRepository.class);
+        EvaluationContext context = new EvaluationContext(transaction("Coffee Shop", NOW), repository, 60);
+
+        assertEquals(0, context.countPrecedingTransactions(60));
+    }
+
+    private Transaction transaction(String merchantName, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(new User("user001", "user001@example.com", "Test", "User"));
+        transaction.setMerchantName(merchantName);
+        transaction.setAmount(new BigDecimal("25.00"));
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
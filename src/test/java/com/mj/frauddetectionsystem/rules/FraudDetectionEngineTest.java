@@ -0,0 +1,184 @@
+package com.mj.frauddetectionsystem.rules;
+
+import com.mj.frauddetectionsystem.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudDetectionEngineTest {
+
+    private FraudDetectionEngine engine;
+
+    @AfterEach
+    public void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testAnalyzeTransaction_Sequential_AveragesTriggeredRules() {
+        engine = createEngine(false);
+        engine.addRule(new StubRule("Rule A", true, new BigDecimal("0.4"), 0));
+        engine.addRule(new StubRule("Rule B", true, new BigDecimal("0.8"), 0));
+        engine.addRule(new StubRule("Rule C", false, BigDecimal.ZERO, 0));
+
+        FraudDetectionResult result = engine.analyzeTransaction(createTransaction());
+
+        assertTrue(result.isFraudulent());
+        assertEquals(2, result.getTriggeredRules().size());
+        assertEquals(new BigDecimal("0.60"), result.getConfidenceScore());
+        assertTrue(result.getTimedOutRules().isEmpty());
+    }
+
+    @Test
+    public void testAnalyzeTransaction_Parallel_SlowRuleRecordedAsTimedOut() {
+        engine = createEngine(true);
+        engine.addRule(new StubRule("Fast Rule", true, new BigDecimal("0.5"), 0));
+        engine.addRule(new StubRule("Slow Rule", true, new BigDecimal("0.9"), 2000));
+
+        long start = System.currentTimeMillis();
+        FraudDetectionResult result = engine.analyzeTransaction(createTransaction());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 1000, "analysis should not wait for the slow rule");
+        assertTrue(result.isFraudulent());
+        assertEquals(1, result.getTriggeredRules().size());
+        assertEquals("Fast Rule", result.getTriggeredRules().get(0));
+        assertEquals(1, result.getTimedOutRules().size());
+        assertEquals("Slow Rule", result.getTimedOutRules().get(0));
+        assertEquals(new BigDecimal("0.50"), result.getConfidenceScore());
+        assertEquals(1, engine.getRuleStats().stream().mapToLong(s -> s.getTimeouts()).sum());
+    }
+
+    @Test
+    public void testAnalyzeTransaction_Parallel_SaturatedRulesRecordedAsTimedOut() {
+        engine = createEngine(true);
+        ReflectionTestUtils.setField(engine, "poolSize", 1);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1);
+        engine.shutdown();
+        engine.init();
+        engine.addRule(new StubRule("Running Rule", false, BigDecimal.ZERO, 2000));
+        engine.addRule(new StubRule("Queued Rule", false, BigDecimal.ZERO, 2000));
+        StubRule rejected = new StubRule("Rejected Rule", true, new BigDecimal("0.9"), 0);
+        engine.addRule(rejected);
+
+        long start = System.currentTimeMillis();
+        FraudDetectionResult result = engine.analyzeTransaction(createTransaction());
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue(elapsed < 1000, "a saturated executor should not run rules on the request thread");
+        assertEquals(0, rejected.invocations);
+        assertTrue(result.getTimedOutRules().contains("Rejected Rule"));
+        assertEquals(3, result.getTimedOutRules().size());
+    }
+
+    @Test
+    public void testAnalyzeTransaction_Parallel_TimedOutRuleIsInterrupted() throws InterruptedException {
+        engine = createEngine(true);
+        StubRule slow = new StubRule("Slow Rule", true, new BigDecimal("0.9"), 5000);
+        engine.addRule(slow);
+
+        FraudDetectionResult result = engine.analyzeTransaction(createTransaction());
+
+        assertEquals(1, result.getTimedOutRules().size());
+        for (int i = 0; i < 50 && !slow.interrupted; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(slow.interrupted, "the timed out rule should be interrupted");
+    }
+
+    @Test
+    public void testAnalyzeTransaction_DeclinePolicy_StopsAtThreshold() {
+        engine = createEngine(false);
+        ReflectionTestUtils.setField(engine, "shortCircuitPolicy", ShortCircuitPolicy.DECLINE);
+        StubRule expensive = new StubRule("Expensive Rule", true, new BigDecimal("0.5"), 0);
+        engine.addRule(new StubRule("Decisive Rule", true, new BigDecimal("0.9"), 0));
+        engine.addRule(expensive);
+
+        FraudDetectionResult result = engine.analyzeTransaction(createTransaction());
+
+        assertTrue(result.isFraudulent());
+        assertEquals(1, result.getTriggeredRules().size());
+        assertEquals(new BigDecimal("0.90"), result.getConfidenceScore());
+        assertEquals(0, expensive.invocations);
+    }
+
+    @Test
+    public void testAdaptiveOrdering_MovesSelectiveRuleFirst() {
+        engine = createEngine(false);
+        ReflectionTestUtils.setField(engine, "adaptiveOrderingEnabled", true);
+        ReflectionTestUtils.setField(engine, "reorderInterval", 5);
+        engine.addRule(new StubRule("Slow Quiet Rule", false, BigDecimal.ZERO, 2));
+        engine.addRule(new StubRule("Fast Selective Rule", true, new BigDecimal("0.5"), 0));
+
+        for (int i = 0; i < 5; i++) {
+            engine.analyzeTransaction(createTransaction());
+        }
+
+        assertEquals("Fast Selective Rule", engine.getEvaluationOrder().get(0));
+    }
+
+    private FraudDetectionEngine createEngine(boolean parallel) {
+        FraudDetectionEngine engine = new FraudDetectionEngine();
+        ReflectionTestUtils.setField(engine, "parallelEnabled", parallel);
+        ReflectionTestUtils.setField(engine, "poolSize", 4);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 16);
+        ReflectionTestUtils.setField(engine, "defaultRuleTimeoutMs", 100L);
+        engine.init();
+        return engine;
+    }
+
+    private Transaction createTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId("TEST001");
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setTimestamp(LocalDateTime.now());
+        return transaction;
+    }
+
+    private static class StubRule implements FraudDetectionRule {
+        private final String name;
+        private final boolean fraudulent;
+        private final BigDecimal confidence;
+        private final long delayMs;
+        private volatile int invocations;
+        private volatile boolean interrupted;
+
+        StubRule(String name, boolean fraudulent, BigDecimal confidence, long delayMs) {
+            this.name = name;
+            this.fraudulent = fraudulent;
+            this.confidence = confidence;
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public boolean isFraudulent(Transaction transaction) {
+            invocations++;
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return fraudulent;
+        }
+
+        @Override
+        public String getRuleName() {
+            return name;
+        }
+
+        @Override
+        public BigDecimal calculateConfidence(Transaction transaction) {
+            return confidence;
+        }
+    }
+}
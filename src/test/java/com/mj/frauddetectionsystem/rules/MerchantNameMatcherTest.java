@@ -0,0 +1,45 @@
+package com.mj.frauddetectionsystem.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MerchantNameMatcherTest {
+
+    private final MerchantNameMatcher matcher = MerchantNameMatcher.builder()
+            .addAll(List.of("TEST", "EASY_CASH"), MerchantNameMatcher.PatternClass.SUSPICIOUS)
+            .addAll(List.of("GAMBLING", "CRYPTO"), MerchantNameMatcher.PatternClass.HIGH_RISK)
+            .addAll(List.of("OFFSHORE_GAMBLING"), MerchantNameMatcher.PatternClass.CRITICAL_RISK)
+            .build();
+
+    @Test
+    public void testMatch_IsCaseInsensitive() {
+        assertEquals(MerchantNameMatcher.PatternClass.SUSPICIOUS, matcher.match("Acme test store"));
+        assertEquals(MerchantNameMatcher.PatternClass.HIGH_RISK, matcher.match("best crypto exchange"));
+    }
+
+    @Test
+    public void testMatch_ReportsMostSevereClass() {
+        // GAMBLING is found through the failure link inside OFFSHORE_GAMBLING
+        assertEquals(MerchantNameMatcher.PatternClass.CRITICAL_RISK, matcher.match("OFFSHORE_GAMBLING_LTD"));
+        assertEquals(MerchantNameMatcher.PatternClass.HIGH_RISK, matcher.match("OFFSHORE GAMBLING"));
+        assertEquals(MerchantNameMatcher.PatternClass.HIGH_RISK, matcher.match("TEST GAMBLING"));
+    }
+
+    @Test
+    public void testMatch_OverlappingPrefixes() {
+        assertTrue(matcher.matchesAny("TETEST"));
+        assertTrue(matcher.matchesAny("EASY_EASY_CASH"));
+        assertFalse(matcher.matchesAny("EASY CASH"));
+    }
+
+    @Test
+    public void testMatch_NoMatch() {
+        assertNull(matcher.match("Corner Grocery"));
+        assertNull(matcher.match(""));
+        assertNull(matcher.match(null));
+        assertEquals(0, matcher.matchMask("Café Über"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mj.frauddetectionsystem.dto.FraudDetectionResponse;
+import com.mj.frauddetectionsystem.dto.TransactionRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+public class BulkTransactionServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BulkTransactionService service;
+    private List<List<String>> windows;
+
+    @BeforeEach
+    public void setUp() {
+        service = spy(new BulkTransactionService());
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "streamWindowSize", 500);
+        ReflectionTestUtils.setField(service, "maxLineLength", 200);
+        windows = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<TransactionRequest> requests = invocation.getArgument(0);
+            windows.add(requests.stream().map(TransactionRequest::getTransactionId).toList());
+            return requests.stream()
+                .map(r -> new FraudDetectionResponse(r.getTransactionId(), false, BigDecimal.ZERO, List.of()))
+                .toList();
+        }).when(service).analyzeBulk(anyList());
+    }
+
+    @Test
+    public void testAnalyzeStream_CrlfAndFinalLineWithoutNewline() throws Exception {
+        List<JsonNode> responses = analyze(line("T1") + "\r\n" + line("T2") + "\r\n" + line("T3"));
+
+        assertEquals(List.of("T1", "T2", "T3"), transactionIds(responses));
+        assertEquals(List.of(List.of("T1", "T2", "T3")), windows);
+    }
+
+    @Test
+    public void testAnalyzeStream_OverLongLineGetsItsOwnError() throws Exception {
+        String overLong = "{\"transactionId\":\"" + "X".repeat(300) + "\"}";
+
+        List<JsonNode> responses = analyze(line("T1") + "\n" + overLong + "\n" + line("T2") + "\n");
+
+        assertEquals(3, responses.size());
+        assertEquals("T1", responses.get(0).get("transactionId").asText());
+        assertEquals("ERROR", responses.get(1).get("status").asText());
+        assertTrue(responses.get(1).get("triggeredRules").get(0).asText().contains("Line 2 exceeds 200 characters"));
+        assertEquals("T2", responses.get(2).get("transactionId").asText());
+    }
+
+    @Test
+    public void testAnalyzeStream_SkipsBlankLinesAndReportsMalformedOnes() throws Exception {
+        List<JsonNode> responses = analyze(line("T1") + "\n\n   \r\nnot json\n" + line("T2") + "\n\n");
+
+        assertEquals(3, responses.size());
+        assertEquals("T1", responses.get(0).get("transactionId").asText());
+        assertEquals("ERROR", responses.get(1).get("status").asText());
+        assertTrue(responses.get(1).get("triggeredRules").get(0).asText().contains("Line 4 is not a valid"));
+        assertEquals("T2", responses.get(2).get("transactionId").asText());
+    }
+
+    @Test
+    public void testAnalyzeStream_KeepsOrderAcrossWindows() throws Exception {
+        ReflectionTestUtils.setField(service, "streamWindowSize", 2);
+
+        List<JsonNode> responses = analyze(line("T1") + "\nbad\n" + line("T2") + "\n" + line("T3") + "\n{\n" + line("T4"));
+
+        assertEquals(6, responses.size());
+        assertEquals("T1", responses.get(0).get("transactionId").asText());
+        assertEquals("ERROR", responses.get(1).get("status").asText());
+        assertEquals("T2", responses.get(2).get("transactionId").asText());
+        assertEquals("T3", responses.get(3).get("transactionId").asText());
+        assertEquals("ERROR", responses.get(4).get("status").asText());
+        assertEquals("T4", responses.get(5).get("transactionId").asText());
+        assertEquals(List.of(List.of("T1"), List.of("T2", "T3"), List.of("T4")), windows);
+    }
+
+    @Test
+    public void testAnalyzeStream_EmptyInputWritesNothing() throws Exception {
+        assertTrue(analyze("").isEmpty());
+        assertTrue(windows.isEmpty());
+    }
+
+    private List<JsonNode> analyze(String input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long written = service.analyzeStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        List<JsonNode> responses = new ArrayList<>();
+        for (String responseLine : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!responseLine.isEmpty()) {
+                responses.add(objectMapper.readTree(responseLine));
+            }
+        }
+        assertEquals(written, responses.size());
+        return responses;
+    }
+
+    private List<String> transactionIds(List<JsonNode> responses) {
+        return responses.stream().map(response -> response.get("transactionId").asText()).toList();
+    }
+
+    private String line(String transactionId) {
+        return "{\"transactionId\":\"" + transactionId + "\",\"userId\":\"user001\",\"amount\":25.00,"
+            + "\"merchantCategoryCode\":\"GRO\",\"merchantName\":\"Test Store\"}";
+    }
+}
@@ -0,0 +1,202 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mj.frauddetectionsystem.dto.FraudAlertMessage;
+import com.mj.frauddetectionsystem.model.AlertOutboxEvent;
+import com.mj.frauddetectionsystem.repository.AlertOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+@EmbeddedKafka(partitions = 1, topics = FraudAlertOutboxTest.TOPIC)
+public class FraudAlertOutboxTest {
+
+    static final String TOPIC = "fraud-alerts-test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final TreeMap<Long, AlertOutboxEvent> rows = new TreeMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private FraudAlertPublisher publisher;
+    private FraudAlertOutbox outbox;
+    private Consumer<String, String> consumer;
+
+    @BeforeEach
+    public void setUp(EmbeddedKafkaBroker broker) {
+        meterRegistry = new SimpleMeterRegistry();
+
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+        kafkaProperties.getProducer().setKeySerializer(StringSerializer.class);
+        kafkaProperties.getProducer().setValueSerializer(JsonSerializer.class);
+        kafkaProperties.getProducer().getProperties().put("spring.json.add.type.headers", "false");
+        publisher = spy(new FraudAlertPublisher());
+        ReflectionTestUtils.setField(publisher, "kafkaProperties", kafkaProperties);
+        ReflectionTestUtils.setField(publisher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "topic", TOPIC);
+        ReflectionTestUtils.setField(publisher, "batchSize", 65536);
+        ReflectionTestUtils.setField(publisher, "lingerMs", 5);
+        ReflectionTestUtils.setField(publisher, "compression", "lz4");
+        ReflectionTestUtils.setField(publisher, "maxBlockMs", 5000L);
+        publisher.init();
+
+        outbox = new FraudAlertOutbox();
+        ReflectionTestUtils.setField(outbox, "alertOutboxRepository", inMemoryRepository());
+        ReflectionTestUtils.setField(outbox, "fraudAlertPublisher", publisher);
+        ReflectionTestUtils.setField(outbox, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(outbox, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(outbox, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(outbox, "batchSize", 2);
+        ReflectionTestUtils.setField(outbox, "sendTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(outbox, "claimTtlMs", 30000L);
+        outbox.init();
+
+        consumer = new DefaultKafkaConsumerFactory<>(
+            KafkaTestUtils.consumerProps("outbox-test-" + System.nanoTime(), "false", broker),
+            new StringDeserializer(), new StringDeserializer()).createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+        // The broker is shared by all tests; only read what this test sends
+        consumer.seekToEnd(consumer.assignment());
+        consumer.assignment().forEach(consumer::position);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        consumer.close();
+        publisher.shutdown();
+    }
+
+    @Test
+    public void testRelay_DeletesRowsTheBrokerAcknowledged() {
+        for (int i = 1; i <= 5; i++) {
+            addRow(i, "TXN00" + i, null);
+        }
+
+        outbox.relay();
+
+        assertTrue(rows.isEmpty());
+        assertEquals(List.of("TXN001", "TXN002", "TXN003", "TXN004", "TXN005"), receivedTransactionIds(5));
+        assertEquals(5.0, meterRegistry.get("fraud.alerts.outbox.relayed").counter().count());
+        assertEquals(5.0, meterRegistry.get("fraud.alerts.kafka").tag("result", "published").counter().count());
+        assertTrue(meterRegistry.get("fraud.alerts.outbox.lag").gauge().value() >= 1.0);
+    }
+
+    @Test
+    public void testRelay_ReleasesFailedSendsAndRetriesThemOnTheNextPoll() {
+        addRow(1, "TXN001", null);
+        addRow(2, "TXN002", null);
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unreachable")))
+            .doCallRealMethod()
+            .when(publisher).send(any(FraudAlertMessage.class));
+
+        outbox.relay();
+
+        assertEquals(List.of(1L, 2L), new ArrayList<>(rows.keySet()));
+        assertTrue(rows.values().stream().allMatch(row -> row.getClaimedUntil() == null));
+        assertEquals(0.0, meterRegistry.get("fraud.alerts.outbox.relayed").counter().count());
+
+        outbox.relay();
+
+        assertTrue(rows.isEmpty());
+        assertEquals(List.of("TXN001", "TXN002"), receivedTransactionIds(2));
+        assertEquals(2.0, meterRegistry.get("fraud.alerts.outbox.relayed").counter().count());
+    }
+
+    @Test
+    public void testRelay_ReclaimsExpiredClaimsAndSkipsLiveOnes() {
+        addRow(1, "TXN001", LocalDateTime.now().minusSeconds(5));
+        addRow(2, "TXN002", LocalDateTime.now().plusMinutes(1));
+        addRow(3, "TXN003", null);
+
+        outbox.relay();
+
+        assertEquals(List.of(2L), new ArrayList<>(rows.keySet()));
+        assertEquals(List.of("TXN001", "TXN003"), receivedTransactionIds(2));
+        assertEquals(2.0, meterRegistry.get("fraud.alerts.outbox.relayed").counter().count());
+    }
+
+    private void addRow(long id, String transactionId, LocalDateTime claimedUntil) {
+        AlertOutboxEvent row = outbox.toEvent(new FraudAlertMessage(transactionId, "user001",
+            new BigDecimal("5000.00"), new BigDecimal("0.90"), List.of("HIGH_AMOUNT")));
+        row.setId(id);
+        row.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        row.setClaimedUntil(claimedUntil);
+        rows.put(id, row);
+    }
+
+    private List<String> receivedTransactionIds(int expected) {
+        List<String> ids = new ArrayList<>();
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (ids.size() < expected && System.nanoTime() < deadline) {
+            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(200));
+            records.forEach(record -> {
+                try {
+                    ids.add(objectMapper.readValue(record.value(), FraudAlertMessage.class).getTransactionId());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * Repository mock backed by the rows map, with the claim semantics of the real queries
+     */
+    @SuppressWarnings("unchecked")
+    private AlertOutboxRepository inMemoryRepository() {
+        AlertOutboxRepository repository = mock(AlertOutboxRepository.class);
+        when(repository.lockOldestUnclaimed(any(LocalDateTime.class), any(Pageable.class))).thenAnswer(invocation -> {
+            LocalDateTime now = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return rows.values().stream()
+                .filter(row -> row.getClaimedUntil() == null || row.getClaimedUntil().isBefore(now))
+                .limit(page.getPageSize())
+                .toList();
+        });
+        when(repository.updateClaims(anyCollection(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            LocalDateTime claimedUntil = invocation.getArgument(1);
+            ids.forEach(id -> rows.get(id).setClaimedUntil(claimedUntil));
+            return ids.size();
+        });
+        doAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            ids.forEach(rows::remove);
+            return null;
+        }).when(repository).deleteAllByIdInBatch(any());
+        return repository;
+    }
+}
@@ -0,0 +1,84 @@
+package com.mj.frauddetectionsystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the raw-edge query of the period statistics against a MySQL container
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FraudStatsQueryPlanner.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class FraudStatsQueryPlannerDatabaseTest {
+
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    // No watermarks, so the whole range is read from the transactions table
+    @MockBean
+    private TransactionRollupJob rollupJob;
+
+    @Autowired
+    private FraudStatsQueryPlanner planner;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testQuery_TransactionWithTwoAlertsCountedOnceUnderHighestSeverity() {
+        long user = jdbcTemplate.queryForObject("SELECT id FROM users WHERE user_id = 'user001'", Long.class);
+        long category = jdbcTemplate.queryForObject("SELECT id FROM merchant_categories WHERE category_code = 'GRO'", Long.class);
+        long fraudulent = insertTransaction("TXN-PLAN-1", user, category, "100.00", true, JAN_1.plusHours(1));
+        insertTransaction("TXN-PLAN-2", user, category, "20.00", false, JAN_1.plusHours(2));
+        insertAlert(user, fraudulent, "MEDIUM");
+        insertAlert(user, fraudulent, "HIGH");
+
+        FraudStatsQueryPlanner.PeriodTotals totals = planner.query(JAN_1, JAN_1.plusDays(1));
+
+        assertEquals(2, totals.getCount());
+        assertEquals(1, totals.getFraudCount());
+        assertEquals(0, new BigDecimal("120.00").compareTo(totals.getAmount()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(totals.getFraudAmount()));
+        assertEquals(Map.of("GRO", 1L), totals.getFraudByCategory());
+        assertEquals(Map.of("HIGH", 1L), totals.getFraudBySeverity());
+    }
+
+    private long insertTransaction(String transactionId, long user, long category, String amount,
+                                   boolean fraudulent, LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO transactions (transaction_id, user_id, amount, merchant_category_id, "
+                + "timestamp, is_fraudulent) VALUES (?, ?, ?, ?, ?, ?)",
+                transactionId, user, new BigDecimal(amount), category, timestamp, fraudulent);
+        return jdbcTemplate.queryForObject("SELECT id FROM transactions WHERE transaction_id = ?", Long.class, transactionId);
+    }
+
+    private void insertAlert(long user, long transaction, String severity) {
+        jdbcTemplate.update("INSERT INTO fraud_alerts (user_id, transaction_id, alert_type, severity) VALUES (?, ?, ?, ?)",
+                user, transaction, "FRAUD_DETECTED", severity);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.service.FraudStatsQueryPlanner.Segment;
+import com.mj.frauddetectionsystem.service.FraudStatsQueryPlanner.Source;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FraudStatsQueryPlannerTest {
+
+    private static final LocalDateTime JAN_1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    public void testPlan_StitchesRawHourlyAndDailySegments() {
+        LocalDateTime from = JAN_1.plusHours(5).plusMinutes(30);
+        LocalDateTime to = JAN_1.plusDays(200).plusHours(7).plusMinutes(10);
+        List<Segment> plan = FraudStatsQueryPlanner.plan(from, to, JAN_1.plusDays(300), JAN_1.plusDays(300));
+
+        assertEquals(List.of(Source.RAW, Source.HOURLY, Source.DAILY, Source.HOURLY, Source.RAW),
+                plan.stream().map(Segment::getSource).toList());
+        assertEquals(JAN_1.plusHours(6), plan.get(1).getFrom());
+        assertEquals(JAN_1.plusDays(1), plan.get(2).getFrom());
+        assertEquals(JAN_1.plusDays(200), plan.get(2).getTo());
+        assertEquals(JAN_1.plusDays(200).plusHours(7), plan.get(4).getFrom());
+        assertContiguous(plan, from, to);
+    }
+
+    @Test
+    public void testPlan_ReadsRawPastTheWatermarks() {
+        LocalDateTime from = JAN_1;
+        LocalDateTime to = JAN_1.plusDays(10);
+        LocalDateTime hourlyEnd = JAN_1.plusDays(5).plusHours(3);
+        List<Segment> plan = FraudStatsQueryPlanner.plan(from, to, hourlyEnd, JAN_1.plusDays(5));
+
+        assertEquals(List.of(Source.DAILY, Source.HOURLY, Source.RAW),
+                plan.stream().map(Segment::getSource).toList());
+        assertEquals(hourlyEnd, plan.get(2).getFrom());
+        assertContiguous(plan, from, to);
+    }
+
+    @Test
+    public void testPlan_AllRawWithoutRollupsOrWithinOneHour() {
+        List<Segment> noRollups = FraudStatsQueryPlanner.plan(JAN_1, JAN_1.plusDays(3), null, null);
+        assertEquals(1, noRollups.size());
+        assertEquals(Source.RAW, noRollups.get(0).getSource());
+
+        LocalDateTime from = JAN_1.plusMinutes(10);
+        List<Segment> partialHour = FraudStatsQueryPlanner.plan(from, from.plusMinutes(30), JAN_1.plusDays(1), JAN_1.plusDays(1));
+        assertEquals(1, partialHour.size());
+        assertEquals(Source.RAW, partialHour.get(0).getSource());
+    }
+
+    private static void assertContiguous(List<Segment> plan, LocalDateTime from, LocalDateTime to) {
+        assertEquals(from, plan.get(0).getFrom());
+        for (int i = 1; i < plan.size(); i++) {
+            assertEquals(plan.get(i - 1).getTo(), plan.get(i).getFrom());
+        }
+        assertEquals(to, plan.get(plan.size() - 1).getTo());
+    }
+}
@@ -0,0 +1,88 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class PostDecisionPipelineTest {
+
+    private static final int TASKS = 20;
+
+    @Test
+    public void testSubmit_FullLaneBlocksSubmitterAndKeepsUserOrder() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        PostDecisionService postDecisionService = mock(PostDecisionService.class);
+        doAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Long transactionKey = invocation.getArgument(0);
+            if (transactionKey == 1L) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            processed.add(transactionKey);
+            threads.add(Thread.currentThread().getName());
+            running.decrementAndGet();
+            return null;
+        }).when(postDecisionService).processCommitted(anyLong(), any(FraudDetectionResult.class));
+
+        PostDecisionPipeline pipeline = createPipeline(postDecisionService);
+        pipeline.init();
+
+        Thread submitter = new Thread(() -> {
+            for (long key = 1; key <= TASKS; key++) {
+                pipeline.submit(7L, key, mock(FraudDetectionResult.class));
+            }
+        });
+        submitter.start();
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // One task running and one queued: the submitter waits instead of running task 3 itself
+        submitter.join(200);
+        assertTrue(submitter.isAlive());
+        assertTrue(processed.isEmpty());
+
+        releaseFirst.countDown();
+        submitter.join(5000);
+        assertFalse(submitter.isAlive());
+        pipeline.shutdown();
+
+        List<Long> expected = new ArrayList<>();
+        for (long key = 1; key <= TASKS; key++) {
+            expected.add(key);
+        }
+        assertEquals(expected, processed);
+        assertEquals(1, maxRunning.get());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("post-decision-")));
+    }
+
+    private PostDecisionPipeline createPipeline(PostDecisionService postDecisionService) {
+        PostDecisionPipeline pipeline = new PostDecisionPipeline();
+        ReflectionTestUtils.setField(pipeline, "postDecisionService", postDecisionService);
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "enabled", true);
+        ReflectionTestUtils.setField(pipeline, "laneCount", 2);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1);
+        ReflectionTestUtils.setField(pipeline, "submitTimeoutMs", 10L);
+        return pipeline;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mj.frauddetectionsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mj.frauddetectionsystem.journal.JournaledTransaction;
+import com.mj.frauddetectionsystem.journal.TransactionJournal;
+import com.mj.frauddetectionsystem.model.Transaction;
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.repository.UserRepository;
+import com.mj.frauddetectionsystem.rules.FraudDetectionResult;
+import com.mj.frauddetectionsystem.state.MerchantCategoryCache;
+import com.mj.frauddetectionsystem.state.PendingTransactionIds;
+import com.mj.frauddetectionsystem.state.TransactionIdFilter;
+import com.mj.frauddetectionsystem.state.UserVelocityStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TransactionWriteBehindTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BulkTransactionService bulkTransactionService;
+    private UserVelocityStore velocityStore;
+    private TransactionIdFilter transactionIdFilter;
+    private PendingTransactionIds pendingTransactionIds;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        bulkTransactionService = mock(BulkTransactionService.class);
+        velocityStore = mock(UserVelocityStore.class);
+        transactionIdFilter = mock(TransactionIdFilter.class);
+        pendingTransactionIds = new PendingTransactionIds();
+        user = new User("user001", "user001@example.com", "Test", "User");
+        user.setId(1L);
+    }
+
+    @Test
+    public void testReplay_SkipsStoredEntriesAndCountsOthersOnce() throws Exception {
+        // A crash after TXN1 reached the database but before the journal released it
+        TransactionJournal journal = new TransactionJournal(directory, 1024 * 1024);
+        journal.recover();
+        for (String transactionId : List.of("TXN1", "TXN2")) {
+            long sequence = journal.append(objectMapper.writeValueAsBytes(entry(transactionId)));
+            journal.awaitDurable(sequence, 1000);
+        }
+        journal.close();
+
+        when(bulkTransactionService.storeScored(anyList())).thenAnswer(invocation -> {
+            List<FraudDetectionResult> results = invocation.getArgument(0);
+            return results.stream().filter(r -> !"TXN1".equals(r.getTransaction().getTransactionId())).toList();
+        });
+        TransactionWriteBehind writeBehind = createWriteBehind();
+        writeBehind.init();
+
+        assertEquals(2, writeBehind.getPendingCount());
+        assertTrue(writeBehind.isPending("TXN1"));
+        // Replayed IDs stay claimed until stored, so a resubmission is refused
+        assertFalse(pendingTransactionIds.claim("TXN2"));
+        verify(transactionIdFilter).put("TXN1");
+        verify(transactionIdFilter).put("TXN2");
+
+        writeBehind.flush();
+
+        assertEquals(0, writeBehind.getPendingCount());
+        assertEquals(0, pendingTransactionIds.size());
+        ArgumentCaptor<Transaction> counted = ArgumentCaptor.forClass(Transaction.class);
+        verify(velocityStore, times(1)).record(counted.capture());
+        assertEquals("TXN2", counted.getValue().getTransactionId());
+
+        // Live entries were counted when journaled and are not counted again
+        Transaction live = entry("TXN3").toResult(user, null).getTransaction();
+        assertTrue(pendingTransactionIds.claim("TXN3"));
+        writeBehind.journal(live, "user001", new FraudDetectionResult(live, false, List.of(), BigDecimal.ZERO));
+        writeBehind.flush();
+        verify(velocityStore, times(1)).record(any(Transaction.class));
+        verify(bulkTransactionService, times(2)).storeScored(anyList());
+        assertFalse(writeBehind.isPending("TXN3"));
+
+        writeBehind.shutdown();
+        TransactionJournal reopened = new TransactionJournal(directory, 1024 * 1024);
+        assertTrue(reopened.recover().isEmpty());
+        reopened.close();
+    }
+
+    private TransactionWriteBehind createWriteBehind() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findWithProfileByUserIdIn(anyCollection())).thenReturn(List.of(user));
+
+        TransactionWriteBehind writeBehind = new TransactionWriteBehind();
+        ReflectionTestUtils.setField(writeBehind, "bulkTransactionService", bulkTransactionService);
+        ReflectionTestUtils.setField(writeBehind, "userRepository", userRepository);
+        ReflectionTestUtils.setField(writeBehind, "merchantCategoryCache", mock(MerchantCategoryCache.class));
+        ReflectionTestUtils.setField(writeBehind, "velocityStore", velocityStore);
+        ReflectionTestUtils.setField(writeBehind, "transactionIdFilter", transactionIdFilter);
+        ReflectionTestUtils.setField(writeBehind, "pendingTransactionIds", pendingTransactionIds);
+        ReflectionTestUtils.setField(writeBehind, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(writeBehind, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "directory", directory.toString());
+        ReflectionTestUtils.setField(writeBehind, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(writeBehind, "syncTimeoutMs", 1000L);
+        // Flushed by the test, not the writer thread
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 100);
+        return writeBehind;
+    }
+
+    private JournaledTransaction entry(String transactionId) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setUser(user);
+        transaction.setAmount(new BigDecimal("42.00"));
+        transaction.setMerchantName("Test Store");
+        transaction.setTimestamp(LocalDateTime.now());
+        return JournaledTransaction.of(transaction, "user001",
+                new FraudDetectionResult(transaction, false, List.of(), BigDecimal.ZERO));
+    }
+}
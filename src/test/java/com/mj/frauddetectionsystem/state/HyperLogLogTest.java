@@ -0,0 +1,50 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testEstimate_WithinErrorBounds() {
+        for (int distinct : new int[] {10, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("user" + i);
+                sketch.add("user" + i);
+            }
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error < 4 * sketch.relativeStandardError(), distinct + " distinct, estimate " + sketch.estimate());
+        }
+    }
+
+    @Test
+    public void testMerge_EqualsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog(12);
+        HyperLogLog right = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) {
+            (i % 2 == 0 ? left : right).add("merchant" + i);
+            // Overlap: every value below 10000 reaches both sides
+            if (i < 10_000) {
+                right.add("merchant" + i);
+            }
+            union.add("merchant" + i);
+        }
+        left.merge(right);
+        assertEquals(union.estimate(), left.estimate());
+    }
+
+    @Test
+    public void testFromBytes_RoundTrips() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("TXN" + i);
+        }
+        HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+        assertEquals(10, copy.getPrecision());
+        assertEquals(sketch.estimate(), copy.estimate());
+        assertThrows(IllegalArgumentException.class, () -> copy.merge(new HyperLogLog(12)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TDigestTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.5, 0.9, 0.95, 0.99};
+
+    @Test
+    public void testQuantile_RankErrorWithinBound() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, like transaction amounts
+            values[i] = Math.exp(4 + random.nextGaussian());
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, digest.getCount());
+        assertTrue(digest.getCentroidCount() <= 110, "centroids: " + digest.getCentroidCount());
+        for (double q : QUANTILES) {
+            assertTrue(rankError(values, digest.quantile(q), q) <= 2 * digest.rankErrorBound(q) + 0.001, "q=" + q);
+        }
+        assertEquals(values[0], digest.quantile(0), 1e-9);
+        assertEquals(values[values.length - 1], digest.quantile(1), 1e-9);
+    }
+
+    @Test
+    public void testMerge_MatchesSingleDigest() {
+        Random random = new Random(7);
+        double[] values = new double[50_000];
+        TDigest[] parts = {new TDigest(100), new TDigest(100), new TDigest(100)};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1_000;
+            parts[i % parts.length].add(values[i]);
+        }
+        Arrays.sort(values);
+
+        TDigest merged = new TDigest(100);
+        for (TDigest part : parts) {
+            merged.merge(TDigest.fromBytes(part.toBytes()));
+        }
+        assertEquals(values.length, merged.getCount());
+        for (double q : QUANTILES) {
+            assertTrue(rankError(values, merged.quantile(q), q) <= 2 * merged.rankErrorBound(q) + 0.001, "q=" + q);
+        }
+    }
+
+    @Test
+    public void testQuantile_EmptyAndSingleValue() {
+        TDigest digest = new TDigest(100);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        digest.add(42.5);
+        assertEquals(42.5, digest.quantile(0.99), 1e-9);
+    }
+
+    private static double rankError(double[] sorted, double estimate, double q) {
+        int rank = Arrays.binarySearch(sorted, estimate);
+        int position = rank >= 0 ? rank : -rank - 1;
+        return Math.abs((double) position / sorted.length - q);
+    }
+}
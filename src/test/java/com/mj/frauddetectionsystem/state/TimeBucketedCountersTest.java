@@ -0,0 +1,103 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeBucketedCountersTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @Test
+    public void testSum_MatchesBruteForceAcrossGranularities() {
+        TimeBucketedCounters counters = new TimeBucketedCounters(Duration.ofDays(30), Duration.ofDays(30));
+        // One transaction every 7 minutes for 5 days, every third one fraudulent
+        for (int i = 0; i < 5 * 24 * 60 / 7; i++) {
+            counters.record(START.plusMinutes(7L * i), i % 3 == 0, new BigDecimal("10.50"));
+        }
+
+        LocalDateTime from = START.plusHours(13).plusMinutes(22);
+        LocalDateTime to = START.plusDays(3).plusHours(5).plusMinutes(41);
+        long expected = 0;
+        long expectedFraud = 0;
+        for (int i = 0; i < 5 * 24 * 60 / 7; i++) {
+            LocalDateTime timestamp = START.plusMinutes(7L * i);
+            if (!timestamp.isBefore(from) && timestamp.isBefore(to)) {
+                expected++;
+                expectedFraud += i % 3 == 0 ? 1 : 0;
+            }
+        }
+
+        TimeBucketedCounters.Totals totals = counters.sum(from, to);
+        assertEquals(expected, totals.getCount());
+        assertEquals(expectedFraud, totals.getFraudCount());
+        assertEquals(new BigDecimal("10.50").multiply(BigDecimal.valueOf(expected)), totals.getAmount());
+        assertEquals(5 * 24 * 60 / 7, counters.total().getCount());
+    }
+
+    @Test
+    public void testSum_RoundsOutToHoursOnceMinutesEvicted() {
+        TimeBucketedCounters counters = new TimeBucketedCounters(Duration.ofHours(1), Duration.ofDays(30));
+        counters.record(START.plusMinutes(5), true, BigDecimal.ONE);
+        counters.record(START.plusMinutes(50), false, BigDecimal.ONE);
+        counters.evict(START.plusDays(1));
+
+        // Only the first transaction falls in the range, but the minute buckets are gone
+        TimeBucketedCounters.Totals totals = counters.sum(START, START.plusMinutes(10));
+        assertEquals(2, totals.getCount());
+        assertEquals(1, totals.getFraudCount());
+        assertEquals(2, counters.size());
+    }
+
+    @Test
+    public void testDrainDirty_ReturnsChangedBucketsOnce() {
+        TimeBucketedCounters counters = new TimeBucketedCounters(Duration.ofDays(1), Duration.ofDays(30));
+        counters.record(START, false, new BigDecimal("2.00"));
+        counters.restore(TimeBucketedCounters.Granularity.DAY, START.minusDays(1), 4, 1, BigDecimal.TEN, BigDecimal.ONE);
+
+        List<TimeBucketedCounters.BucketSnapshot> dirty = counters.drainDirty();
+        // Restored buckets were already checkpointed
+        assertEquals(3, dirty.size());
+        assertTrue(counters.drainDirty().isEmpty());
+
+        counters.markDirty(dirty);
+        assertEquals(3, counters.drainDirty().size());
+        assertEquals(5, counters.total().getCount());
+    }
+
+    @Test
+    public void testDrainDirty_ReturnsDeltasSinceLastDrain() {
+        TimeBucketedCounters counters = new TimeBucketedCounters(Duration.ofDays(1), Duration.ofDays(30));
+        counters.restore(TimeBucketedCounters.Granularity.DAY, START, 4, 1, BigDecimal.TEN, BigDecimal.ONE);
+        counters.record(START, true, new BigDecimal("2.00"));
+        assertEquals(1, dayBucket(counters.drainDirty()).getCount());
+
+        counters.record(START.plusMinutes(1), false, new BigDecimal("3.00"));
+        TimeBucketedCounters.BucketSnapshot delta = dayBucket(counters.drainDirty());
+        assertEquals(1, delta.getCount());
+        assertEquals(0, delta.getFraudCount());
+        assertEquals(new BigDecimal("3.00"), delta.getAmount());
+
+        // A failed checkpoint hands its delta back to the next one
+        counters.markDirty(List.of(delta));
+        counters.record(START.plusMinutes(2), true, new BigDecimal("5.00"));
+        delta = dayBucket(counters.drainDirty());
+        assertEquals(2, delta.getCount());
+        assertEquals(1, delta.getFraudCount());
+        assertEquals(new BigDecimal("8.00"), delta.getAmount());
+        assertEquals(new BigDecimal("5.00"), delta.getFraudAmount());
+        assertEquals(7, counters.total().getCount());
+    }
+
+    private static TimeBucketedCounters.BucketSnapshot dayBucket(List<TimeBucketedCounters.BucketSnapshot> snapshots) {
+        return snapshots.stream()
+                .filter(s -> s.getGranularity() == TimeBucketedCounters.Granularity.DAY)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mj.frauddetectionsystem.state;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimestampRingTest {
+
+    @Test
+    public void testCountAfter_CountsOnlyStrictlyNewerTimestamps() {
+        TimestampRing ring = new TimestampRing(8);
+        for (long t = 1_000; t <= 5_000; t += 1_000) {
+            ring.record(t);
+        }
+        assertEquals(5, ring.countAfter(0));
+        assertEquals(2, ring.countAfter(3_000));
+        assertEquals(0, ring.countAfter(5_000));
+        assertEquals(0, new TimestampRing(8).countAfter(0));
+    }
+
+    @Test
+    public void testRecord_WrapsAroundKeepingNewestInOrder() {
+        TimestampRing ring = new TimestampRing(4);
+        for (long t = 1; t <= 10; t++) {
+            ring.record(t * 1_000);
+        }
+        assertEquals(4, ring.countAfter(0));
+        assertEquals(2, ring.countAfter(8_000));
+        assertEquals(10_000, ring.newest());
+
+        // Late arrival inside the retained range shifts into place past the wrap point
+        ring.record(8_500);
+        assertEquals(4, ring.countAfter(0));
+        assertEquals(3, ring.countAfter(8_000));
+        assertEquals(1, ring.countAfter(9_000));
+        assertEquals(10_000, ring.newest());
+    }
+
+    @Test
+    public void testRecord_DropsArrivalOlderThanEverythingRetainedWhenFull() {
+        TimestampRing ring = new TimestampRing(3);
+        ring.record(5_000);
+        ring.record(6_000);
+        ring.record(7_000);
+        ring.record(1_000);
+        assertEquals(3, ring.countAfter(0));
+        assertEquals(3, ring.countAfter(4_999));
+    }
+
+    @Test
+    public void testCountAfter_ExpiresTimestampsOutsideTheWindow() {
+        TimestampRing ring = new TimestampRing(16);
+        long now = 10 * 60_000;
+        for (int minutesAgo = 9; minutesAgo >= 0; minutesAgo--) {
+            ring.record(now - minutesAgo * 60_000L);
+        }
+        assertEquals(10, ring.countAfter(now - 10 * 60_000));
+        assertEquals(5, ring.countAfter(now - 5 * 60_000));
+        assertEquals(0, ring.countAfter(now));
+    }
+}
@@ -0,0 +1,105 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.model.User;
+import com.mj.frauddetectionsystem.model.UserProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserSnapshotCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserSnapshotCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = newCache(3, 60);
+    }
+
+    @Test
+    public void testGet_HitAfterPut() {
+        cache.put(user(1L, "USER1"));
+
+        UserSnapshotCache.UserSnapshot snapshot = cache.get("USER1");
+
+        assertNotNull(snapshot);
+        assertEquals(1L, snapshot.getId());
+        assertEquals("USER1", snapshot.getUserId());
+        assertNull(snapshot.getAverageAmount());
+        assertNull(cache.get("USER2"));
+        assertEquals(1.0, meterRegistry.get("fraud.user.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("fraud.user.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsed() {
+        cache.put(user(1L, "USER1"));
+        cache.put(user(2L, "USER2"));
+        cache.put(user(3L, "USER3"));
+        cache.get("USER1");
+        cache.put(user(4L, "USER4"));
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get("USER2"));
+        assertNotNull(cache.get("USER1"));
+        assertEquals(1.0, meterRegistry.get("fraud.user.cache.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    public void testGet_ExpiredEntryIsDropped() {
+        cache = newCache(3, 0);
+        cache.put(user(1L, "USER1"));
+
+        assertNull(cache.get("USER1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidate_RemovesEntry() {
+        cache.put(user(1L, "USER1"));
+
+        cache.invalidate("USER1");
+
+        assertNull(cache.get("USER1"));
+        assertEquals(1.0, meterRegistry.get("fraud.user.cache.evictions").tag("cause", "invalidated").counter().count());
+    }
+
+    @Test
+    public void testRefresh_ReplacesEntryInPlace() {
+        User user = user(1L, "USER1");
+        cache.put(user);
+        UserProfile profile = new UserProfile();
+        profile.getAmountStatistics().record(new BigDecimal("40.00"));
+        profile.getAmountStatistics().record(new BigDecimal("60.00"));
+        user.setProfile(profile);
+
+        cache.refresh(user);
+
+        UserSnapshotCache.UserSnapshot snapshot = cache.get("USER1");
+        assertNotNull(snapshot);
+        assertEquals(new BigDecimal("50.00"), snapshot.getAverageAmount());
+        assertEquals(0.0, meterRegistry.get("fraud.user.cache.evictions").tag("cause", "invalidated").counter().count());
+    }
+
+    private UserSnapshotCache newCache(int maxSize, long ttlSeconds) {
+        UserSnapshotCache newCache = new UserSnapshotCache();
+        ReflectionTestUtils.setField(newCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(newCache, "enabled", true);
+        ReflectionTestUtils.setField(newCache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(newCache, "ttlSeconds", ttlSeconds);
+        newCache.init();
+        return newCache;
+    }
+
+    private User user(Long id, String userId) {
+        User user = new User(userId, userId.toLowerCase() + "@example.com", "Test", "User");
+        user.setId(id);
+        return user;
+    }
+}
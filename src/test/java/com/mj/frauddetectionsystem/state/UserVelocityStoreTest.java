@@ -0,0 +1,101 @@
+package com.mj.frauddetectionsystem.state;
+
+import com.mj.frauddetectionsystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserVelocityStoreTest {
+
+    private TransactionRepository transactionRepository;
+    private UserVelocityStore store;
+
+    @BeforeEach
+    public void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        store = new UserVelocityStore();
+        ReflectionTestUtils.setField(store, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "capacityPerUser", 4);
+        ReflectionTestUtils.setField(store, "retentionMinutes", 60);
+    }
+
+    @Test
+    public void testIsReadyFor_FalseUntilRebuildCompletes() {
+        LocalDateTime now = LocalDateTime.now();
+        AtomicBoolean readyDuringRebuild = new AtomicBoolean(true);
+        when(transactionRepository.findUserTimestampsAfter(any())).thenAnswer(invocation -> {
+            readyDuringRebuild.set(store.isReadyFor("user001"));
+            return List.<Object[]>of(new Object[] {"user001", now.minusMinutes(5)},
+                                     new Object[] {"user001", now.minusMinutes(1)});
+        });
+
+        assertFalse(store.isReadyFor("user001"));
+        store.rebuild();
+
+        assertFalse(readyDuringRebuild.get());
+        assertTrue(store.isReadyFor("user001"));
+        assertFalse(store.isReadyFor(null));
+        assertEquals(2, store.countAfter("user001", now.minusMinutes(10)));
+        assertEquals(1, store.countAfter("user001", now.minusMinutes(3)));
+    }
+
+    @Test
+    public void testIsReadyFor_StaysFalseWhenRebuildFails() {
+        when(transactionRepository.findUserTimestampsAfter(any())).thenThrow(new IllegalStateException("database down"));
+
+        store.rebuild();
+
+        assertFalse(store.isReadyFor("user001"));
+    }
+
+    @Test
+    public void testCountAfter_SaturatesAtCapacityAndIgnoresOtherUsers() {
+        when(transactionRepository.findUserTimestampsAfter(any())).thenReturn(List.of());
+        store.rebuild();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 10; i > 0; i--) {
+            store.record("user001", now.minusSeconds(i));
+        }
+        store.record("user002", now);
+
+        assertEquals(4, store.countAfter("user001", now.minusMinutes(1)));
+        assertEquals(1, store.countAfter("user002", now.minusMinutes(1)));
+        assertEquals(0, store.countAfter("user003", now.minusMinutes(1)));
+    }
+
+    @Test
+    public void testEvictIdleUsers_DropsUsersOutsideRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        store.record("user001", now.minusMinutes(90));
+        store.record("user002", now.minusMinutes(30));
+
+        store.evictIdleUsers();
+
+        assertEquals(1, store.getTrackedUserCount());
+        assertEquals(0, store.countAfter("user001", now.minusHours(2)));
+        assertEquals(1, store.countAfter("user002", now.minusHours(2)));
+    }
+
+    @Test
+    public void testRestrictTo_ReadyOnlyForOwnedUsers() {
+        store.record("user001", LocalDateTime.now());
+        store.record("user002", LocalDateTime.now());
+
+        store.restrictTo("user001"::equals);
+        store.rebuild();
+
+        assertTrue(store.isReadyFor("user001"));
+        assertFalse(store.isReadyFor("user002"));
+        assertEquals(1, store.getTrackedUserCount());
+    }
+}